@@ -0,0 +1,107 @@
+package vm2024;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Benchmarks of the steps of the CPU's data path cycle: fetch, decode, execute, and the whole cycle of run().
+// The CPU is switched to a process of the arithmetic loop deck, with its PC on the ADD instruction at the top of the loop.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CpuBenchmark {
+
+    // Index of the first ADD of the loop program.
+    static final int LOOP_PC = 2;
+
+    private CentralProcessingUnit cpu;
+    private int[] operation;
+    private long instruction;
+
+    @Setup
+    public void setup() throws IOException {
+        cpu = CpuState.start(new OperatingSystem());
+        cpu.fetch();
+        operation = cpu.decode();
+        instruction = cpu.process.instructions.get(LOOP_PC);
+    }
+
+    // Reads the instruction at the PC from memory into the instruction register.
+    @Benchmark
+    public int fetch() {
+        cpu.PC = LOOP_PC;
+        cpu.fetch();
+        return cpu.registers[2];
+    }
+
+    // Decodes the instruction register into an operation array.
+    @Benchmark
+    public int[] decode() {
+        cpu.registers[2] = cpu.process.instructions.word(LOOP_PC);
+        return cpu.decode();
+    }
+
+    // Executes a decoded operation array through the ALU switch.
+    @Benchmark
+    public int executeOperation() {
+        cpu.execute(operation);
+        return cpu.registers[1];
+    }
+
+    // Executes a pre-decoded instruction from the instruction cache through the ALU switch.
+    @Benchmark
+    public int executeInstruction() {
+        cpu.execute(instruction);
+        return cpu.registers[1];
+    }
+
+    // A CPU that runs the loop program on one of the execution engines, for the benchmark of run().
+    @State(Scope.Thread)
+    public static class CpuState {
+
+        @Param({"SWITCH", "THREADED", "TIERED"})
+        public String engine;
+
+        CentralProcessingUnit cpu;
+
+        @Setup
+        public void setup() throws IOException {
+            OperatingSystem os = new OperatingSystem();
+            os.engine = ExecutionEngine.valueOf(engine);
+            cpu = start(os);
+        }
+
+        // Loads a one-job loop deck, admits it, and switches a new CPU to its process.
+        static CentralProcessingUnit start(OperatingSystem os) throws IOException {
+            os.boot();
+            os.loader(SyntheticDecks.write(SyntheticDecks.arithmeticLoop(Integer.MAX_VALUE, 1)).toString());
+            os.longTermScheduler();
+            os.CPU = new CentralProcessingUnit(os.MMU);
+            os.dispatch(0);
+            os.CPU.PC = LOOP_PC;
+            return os.CPU;
+        }
+    }
+
+    // Runs one data path cycle from the top of the loop, which on the tiered engine runs the compiled loop body once it is hot.
+    @Benchmark
+    public int run(CpuState state) {
+        CentralProcessingUnit cpu = state.cpu;
+        cpu.PC = LOOP_PC;
+        cpu.run();
+        return cpu.registers[1];
+    }
+}
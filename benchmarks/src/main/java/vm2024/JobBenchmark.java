@@ -0,0 +1,50 @@
+package vm2024;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Benchmark of whole-job execution: the driver boots the OS, loads the deck, and runs every job to completion, with and without the load-time optimizer.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobBenchmark {
+
+    @Param({"PROGRAM_FILE", "LOOP", "MEMORY", "MANY_JOBS"})
+    public String workload;
+
+    @Param({"SWITCH", "THREADED", "TIERED"})
+    public String engine;
+
+    @Param({"false", "true"})
+    public String optimize;
+
+    private String path;
+
+    @Setup
+    public void setup() throws IOException {
+        path = Workload.valueOf(workload).deck().toString();
+    }
+
+    @Benchmark
+    public long driver() throws IOException {
+        OperatingSystem os = new OperatingSystem();
+        os.engine = ExecutionEngine.valueOf(engine);
+        os.optimize = Boolean.parseBoolean(optimize);
+        os.driver(path);
+        return os.CPU.instructionsExecuted;
+    }
+}
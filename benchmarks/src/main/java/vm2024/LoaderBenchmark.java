@@ -0,0 +1,45 @@
+package vm2024;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Benchmark of the loader, which streams a deck from a file onto the virtual disc and creates the PCBs of its jobs.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoaderBenchmark {
+
+    @Param({"PROGRAM_FILE", "LOOP", "MEMORY", "MANY_JOBS"})
+    public String workload;
+
+    private String path;
+    private OperatingSystem os;
+
+    @Setup
+    public void setup() throws IOException {
+        path = Workload.valueOf(workload).deck().toString();
+        os = new OperatingSystem();
+    }
+
+    // Boots fresh devices and loads the whole deck.
+    @Benchmark
+    public int loader() throws IOException {
+        os.boot();
+        os.loader(path);
+        return os.jobQueue.size();
+    }
+}
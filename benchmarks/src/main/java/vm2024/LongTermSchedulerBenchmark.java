@@ -0,0 +1,57 @@
+package vm2024;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Benchmark of the long-term scheduler, which copies the jobs from the virtual disc into memory and admits them as ready processes.
+// The deck is loaded once, and memory and the queues are reset before every invocation, so each invocation admits as many jobs as fit in an empty memory.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongTermSchedulerBenchmark {
+
+    @Param({"PROGRAM_FILE", "LOOP", "MEMORY", "MANY_JOBS"})
+    public String workload;
+
+    @Param({"SWITCH", "THREADED", "TIERED"})
+    public String engine;
+
+    private OperatingSystem os;
+
+    @Setup
+    public void setup() throws IOException {
+        os = new OperatingSystem();
+        os.engine = ExecutionEngine.valueOf(engine);
+        os.boot();
+        os.loader(Workload.valueOf(workload).deck().toString());
+    }
+
+    // Empties memory and the ready queue, leaving the loaded jobs on the disc.
+    @Setup(Level.Invocation)
+    public void reset() {
+        os.MMU = new MemoryManagementUnit();
+        os.readyQueue.clear();
+        os.nextJob = 0;
+    }
+
+    @Benchmark
+    public int longTermScheduler() {
+        os.longTermScheduler();
+        return os.readyQueue.size();
+    }
+}
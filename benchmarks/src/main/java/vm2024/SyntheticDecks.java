@@ -0,0 +1,154 @@
+package vm2024;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+// A generator of synthetic program decks for the benchmarks, written in the same format as the program file.
+// Every deck is a batch of jobs with "job" and "data" control lines, followed by their instruction and data words in hex.
+class SyntheticDecks {
+
+    // Opcodes of the instructions that the generated programs use.
+    private static final int LW = 0x03;
+    private static final int ST = 0x02;
+    private static final int ADD = 0x05;
+    private static final int SLT = 0x10;
+    private static final int HLT = 0x12;
+    private static final int BNE = 0x16;
+
+    // Largest number of words that a generated program can address, as addresses are 16-bit byte offsets.
+    static final int MAX_PROGRAM_WORDS = 0x10000 / 4;
+
+    // Returns a deck of jobs that each run a tight arithmetic loop for the given number of iterations.
+    // The loop counts a register up to the iteration count and sums the counter into another register.
+    static String arithmeticLoop(int iterations, int jobs) {
+        int[] program = {
+            immediate(LW, 4, 7),        // r4 = iterations
+            immediate(LW, 5, 8),        // r5 = 1
+            arithmetic(ADD, 1, 1, 5),   // r1 = r1 + 1
+            arithmetic(ADD, 6, 6, 1),   // r6 = r6 + r1
+            arithmetic(SLT, 3, 1, 4),   // r3 = r1 < iterations
+            immediate(BNE, 3, 9),       // loop back to the first ADD while r3 != 0
+            halt(),
+        };
+        int[] data = {iterations, 1, 1};
+        StringBuilder deck = new StringBuilder();
+        for (int job = 1; job <= jobs; job++) {
+            appendJob(deck, job, program, data);
+        }
+        return deck.toString();
+    }
+
+    // Returns a deck of jobs with large data sections, whose programs read, accumulate, and write back every data word.
+    // Each word costs a load, an add, and a store, so the programs touch every frame of their logical space.
+    static String memoryHeavy(int words, int jobs) {
+        if (4 * words + 1 > MAX_PROGRAM_WORDS) {
+            throw new IllegalArgumentException("Data section of " + words + " words is too large to address");
+        }
+        int[] program = new int[3 * words + 1];
+        int dataStart = program.length;
+        for (int i = 0; i < words; i++) {
+            program[3 * i] = immediate(LW, 7, dataStart + i);
+            program[3 * i + 1] = arithmetic(ADD, 6, 6, 7);
+            program[3 * i + 2] = immediate(ST, 6, dataStart + i);
+        }
+        program[program.length - 1] = halt();
+
+        int[] data = new int[words];
+        for (int i = 0; i < words; i++) {
+            data[i] = i;
+        }
+        StringBuilder deck = new StringBuilder();
+        for (int job = 1; job <= jobs; job++) {
+            appendJob(deck, job, program, data);
+        }
+        return deck.toString();
+    }
+
+    // Returns a deck of many short jobs, for measuring the per-job costs of loading, scheduling, and context switching.
+    static String manyJobs(int jobs) {
+        return arithmeticLoop(10, jobs);
+    }
+
+    // Writes a deck to a temporary file, and returns its path for the loader.
+    static Path write(String deck) throws IOException {
+        Path file = Files.createTempFile("vm2024-deck", ".txt");
+        file.toFile().deleteOnExit();
+        Files.write(file, deck.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    // Copies the bundled "Program File.txt" to a temporary file, and returns its path for the loader.
+    static Path programFile() throws IOException {
+        try (InputStream input = SyntheticDecks.class.getResourceAsStream("/Program File.txt")) {
+            if (input == null) {
+                throw new IOException("Program File.txt is not bundled with the benchmarks");
+            }
+            Path file = Files.createTempFile("vm2024-program", ".txt");
+            file.toFile().deleteOnExit();
+            Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+            return file;
+        }
+    }
+
+    // Appends a job with its control lines to a deck.
+    private static void appendJob(StringBuilder deck, int job, int[] program, int[] data) {
+        deck.append(String.format("// JOB %X %X 1%n", job, program.length));
+        for (int word : program) {
+            deck.append(String.format("0x%08X%n", word));
+        }
+        deck.append(String.format("// Data %X 0 0%n", data.length));
+        for (int word : data) {
+            deck.append(String.format("0x%08X%n", word));
+        }
+        deck.append(String.format("// END%n"));
+    }
+
+    // Encodes an arithmetic instruction with three registers.
+    private static int arithmetic(int opcode, int first, int second, int third) {
+        return (opcode << 24) | (first << 20) | (second << 16) | (third << 12);
+    }
+
+    // Encodes an immediate or branch instruction with a register and the byte address of a word.
+    private static int immediate(int opcode, int register, int word) {
+        return (1 << 30) | (opcode << 24) | (register << 20) | (word * 4);
+    }
+
+    // Encodes the HLT instruction.
+    private static int halt() {
+        return (2 << 30) | (HLT << 24);
+    }
+
+    // Command line entry point for writing a deck: SyntheticDecks <loop|memory|many> <size> <jobs> <file>
+    // The size is the number of loop iterations for "loop", and the number of data words for "memory".
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("Usage: SyntheticDecks <loop|memory|many> <size> <jobs> <file>");
+            System.exit(2);
+        }
+        int size = Integer.parseInt(args[1]);
+        int jobs = Integer.parseInt(args[2]);
+        String deck;
+        switch (args[0]) {
+            case "loop":
+            deck = arithmeticLoop(size, jobs);
+            break;
+
+            case "memory":
+            deck = memoryHeavy(size, jobs);
+            break;
+
+            case "many":
+            deck = manyJobs(jobs);
+            break;
+
+            default:
+            throw new IllegalArgumentException("Unknown deck: " + args[0]);
+        }
+        Files.write(Paths.get(args[3]), deck.getBytes(StandardCharsets.US_ASCII));
+    }
+}
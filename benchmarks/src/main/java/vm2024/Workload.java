@@ -0,0 +1,33 @@
+package vm2024;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// The workloads of the benchmarks: the bundled program file, and synthetic decks that stress different parts of the VM.
+enum Workload {
+    // The sample program file of the repository.
+    PROGRAM_FILE,
+    // A few jobs that each run a long arithmetic loop, which stresses the CPU's execution engine.
+    LOOP,
+    // Jobs with large data sections that are read and written word by word, which stresses the loader, the MMU, and the long-term scheduler.
+    MEMORY,
+    // Thousands of short jobs, which stresses per-job loading, admission, and context switching.
+    MANY_JOBS;
+
+    // Writes the deck of the workload to a temporary file, and returns its path for the loader.
+    Path deck() throws IOException {
+        switch (this) {
+            case LOOP:
+            return SyntheticDecks.write(SyntheticDecks.arithmeticLoop(100_000, 4));
+
+            case MEMORY:
+            return SyntheticDecks.write(SyntheticDecks.memoryHeavy(4000, 8));
+
+            case MANY_JOBS:
+            return SyntheticDecks.write(SyntheticDecks.manyJobs(2000));
+
+            default:
+            return SyntheticDecks.programFile();
+        }
+    }
+}
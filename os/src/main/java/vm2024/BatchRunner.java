@@ -0,0 +1,206 @@
+package vm2024;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// A headless runner for batches of program files, which runs every deck of a directory or a glob in parallel and dumps the final state of its jobs.
+// Every deck runs on its own OS instance, as a task of a fork-join pool, so the decks share nothing but the JVM.
+// The dump of a deck is written to the output directory in the format of the program file, with the job's registers on a comment line, so the final data sections can be diffed or loaded again.
+class BatchRunner {
+
+    // The result of running one deck: its jobs, how long the deck took, and the failure that stopped it, if any.
+    static class DeckResult {
+        Path deck;
+        ArrayList<ProcessControlBlock> jobs;
+        long elapsed;
+        Throwable failure;
+    }
+
+    // Number of decks run at the same time.
+    private int parallelism;
+    // The engine that every OS instance executes programs with.
+    private ExecutionEngine engine;
+
+    // Constructor for a runner of the given number of decks at a time, on the given engine.
+    BatchRunner(int parallelism, ExecutionEngine engine) {
+        this.parallelism = parallelism;
+        this.engine = engine;
+    }
+
+    // Returns the decks to run, in name order: every regular file of a directory, or the files whose names match a glob such as "decks/*.txt".
+    static ArrayList<Path> decks(String pattern) throws IOException {
+        Path path = Paths.get(pattern);
+        Path directory;
+        PathMatcher matcher;
+        if (Files.isDirectory(path)) {
+            directory = path;
+            matcher = file -> true;
+        } else {
+            directory = path.getParent() == null ? Paths.get(".") : path.getParent();
+            matcher = directory.getFileSystem().getPathMatcher("glob:" + path.getFileName());
+        }
+
+        ArrayList<Path> decks = new ArrayList<Path>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                if (Files.isRegularFile(file) && matcher.matches(file.getFileName())) {
+                    decks.add(file);
+                }
+            }
+        }
+        decks.sort(null);
+        return decks;
+    }
+
+    // Runs the decks on the fork-join pool, writing the dump of every deck to the output directory.
+    // Returns the results in the order of the decks.
+    ArrayList<DeckResult> run(ArrayList<Path> decks, Path output) throws IOException {
+        Files.createDirectories(output);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ArrayList<ForkJoinTask<DeckResult>> tasks = new ArrayList<ForkJoinTask<DeckResult>>();
+            for (Path deck : decks) {
+                tasks.add(pool.submit(() -> runDeck(deck, output)));
+            }
+            ArrayList<DeckResult> results = new ArrayList<DeckResult>();
+            for (ForkJoinTask<DeckResult> task : tasks) {
+                try {
+                    results.add(task.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while running the decks", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("A deck task failed", e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Runs one deck on a new OS instance and writes its dump.
+    // A deck that fails is reported in its result instead of stopping the other decks.
+    DeckResult runDeck(Path deck, Path output) {
+        DeckResult result = new DeckResult();
+        result.deck = deck;
+        long start = System.nanoTime();
+        try {
+            OperatingSystem os = new OperatingSystem();
+            os.engine = engine;
+            os.captureFinalState = true;
+            os.driver(deck.toString());
+            result.jobs = os.jobQueue;
+            writeDump(output.resolve(deck.getFileName() + ".dump"), os.jobQueue);
+        } catch (Throwable e) {
+            result.failure = e;
+        }
+        result.elapsed = System.nanoTime() - start;
+        return result;
+    }
+
+    // Writes the final registers and memory of the terminated jobs of a deck, in the format of the program file.
+    static void writeDump(Path file, ArrayList<ProcessControlBlock> jobs) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            for (ProcessControlBlock pcb : jobs) {
+                if (pcb.finalMemory == null) {
+                    continue;
+                }
+                out.write(String.format("// JOB %X %X %X%n", pcb.jobId, pcb.instructionCount, pcb.priority));
+                out.write("// Registers");
+                for (int register : pcb.finalRegisters) {
+                    out.write(String.format(" 0x%08X", register));
+                }
+                out.newLine();
+                for (int i = 0; i < pcb.finalMemory.length; i++) {
+                    if (i == pcb.dataOffset) {
+                        out.write(String.format("// Data %X %X %X%n", pcb.inputBufferSize, pcb.outputBufferSize, pcb.tempBufferSize));
+                    }
+                    out.write(String.format("0x%08X%n", pcb.finalMemory[i]));
+                }
+                out.write(String.format("// END%n"));
+            }
+        }
+    }
+
+    // Prints a line for every deck, then the throughput of the whole batch and the percentiles of the job latency.
+    // The latency of a job is its turnaround time, from being loaded until it finished.
+    // Returns the number of decks that failed.
+    static int printSummary(ArrayList<DeckResult> results, long elapsed) {
+        int failures = 0;
+        long jobs = 0;
+        long instructions = 0;
+        ArrayList<Long> latencies = new ArrayList<Long>();
+        for (DeckResult result : results) {
+            if (result.failure != null) {
+                System.out.printf("%s: failed after %.3f ms: %s%n", result.deck, result.elapsed / 1e6, result.failure);
+                failures++;
+                continue;
+            }
+            long deckInstructions = 0;
+            for (ProcessControlBlock pcb : result.jobs) {
+                deckInstructions += pcb.instructionsExecuted;
+                latencies.add(pcb.getTurnaroundTime());
+            }
+            System.out.printf("%s: %d jobs, %d instructions in %.3f ms%n", result.deck, result.jobs.size(), deckInstructions, result.elapsed / 1e6);
+            jobs += result.jobs.size();
+            instructions += deckInstructions;
+        }
+
+        long[] sorted = new long[latencies.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+        System.out.printf("%d decks (%d failed): %d jobs, %d instructions in %.3f ms (%.0f jobs/sec, %.0f instructions/sec), job latency p50 %.1f us, p99 %.1f us%n",
+            results.size(), failures, jobs, instructions, elapsed / 1e6, jobs * 1e9 / Math.max(elapsed, 1), instructions * 1e9 / Math.max(elapsed, 1),
+            percentile(sorted, 50) / 1e3, percentile(sorted, 99) / 1e3);
+        return failures;
+    }
+
+    // Returns the nearest-rank percentile of sorted values, or 0 if there are none.
+    static long percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    // Command line entry point for the runner: BatchRunner <deck directory or glob> <output directory> [parallelism] [engine]
+    // Runs as many decks at a time as there are processors by default, on the switch interpreter.
+    // Exits with status 1 if any deck failed.
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("Usage: BatchRunner <deck directory or glob> <output directory> [parallelism] [engine]");
+            System.exit(2);
+        }
+        int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        ExecutionEngine engine = args.length > 3 ? ExecutionEngine.valueOf(args[3].toUpperCase()) : ExecutionEngine.SWITCH;
+
+        ArrayList<Path> decks = decks(args[0]);
+        if (decks.isEmpty()) {
+            System.err.println("No decks match " + args[0]);
+            System.exit(2);
+        }
+
+        BatchRunner runner = new BatchRunner(parallelism, engine);
+        long start = System.nanoTime();
+        ArrayList<DeckResult> results = runner.run(decks, Paths.get(args[1]));
+        long elapsed = System.nanoTime() - start;
+        if (printSummary(results, elapsed) > 0) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package vm2024;
+
+import java.util.Arrays;
+
+// A class for simulating a cache between the CPU and the MMU.
+// The simulator only keeps the tags of the cached lines, the words themselves are always read from and written to the MMU, so enabling it never changes the results of a program.
+// It is used for a separate instruction cache and data cache, each configured with its size, line size, associativity, write policy, and replacement policy.
+// Hits, misses, evictions, and writes to memory are counted into the counters of the process that made the access, except the write-back of a dirty line, which is counted for the process that wrote into it.
+// Accesses never allocate, so enabling the simulator does not distort the run times being measured.
+class CacheSimulator {
+
+    // Write policies: write-back marks lines dirty and writes them to memory on eviction, write-through writes every store to memory.
+    enum WritePolicy {
+        WRITE_BACK,
+        WRITE_THROUGH
+    }
+
+    // Replacement policies for picking the line to evict from a full set.
+    enum ReplacementPolicy {
+        LRU,
+        FIFO,
+        RANDOM
+    }
+
+    // Indexes of the counters in a process's counter array.
+    static final int HITS = 0;
+    static final int MISSES = 1;
+    static final int EVICTIONS = 2;
+    static final int MEMORY_WRITES = 3;
+    static final int COUNTERS = 4;
+
+    // Configuration of the cache, with sizes in words.
+    private int size;
+    private int lineSize;
+    private int associativity;
+    private WritePolicy writePolicy;
+    private ReplacementPolicy replacementPolicy;
+
+    // Shifts and masks for splitting an address into its line and set.
+    private int lineShift;
+    private int setMask;
+
+    // State of every way of every set: the line it holds (-1 when empty), whether it is dirty, and the time it was filled or last used.
+    private int[] lines;
+    private boolean[] dirty;
+    private long[] stamps;
+    // The counters of the process that last wrote into each dirty line, which pays for its write-back.
+    private long[][] owners;
+    // Time of the last access, and the state of the random number generator for random replacement.
+    private long clock;
+    private long random;
+
+    // Constructor for a cache of the given size, line size, and associativity in words, and write and replacement policies.
+    // The size and line size must be powers of two, and the number of sets must be a whole power of two as well.
+    CacheSimulator(int size, int lineSize, int associativity, WritePolicy writePolicy, ReplacementPolicy replacementPolicy) {
+        if (Integer.bitCount(size) != 1 || Integer.bitCount(lineSize) != 1 || associativity <= 0) {
+            throw new IllegalArgumentException("Cache size and line size must be powers of two, and associativity positive");
+        }
+        int sets = size / (lineSize * associativity);
+        if (sets == 0 || Integer.bitCount(sets) != 1 || sets * lineSize * associativity != size) {
+            throw new IllegalArgumentException("Cache of " + size + " words cannot be split into " + associativity + "-way sets of " + lineSize + "-word lines");
+        }
+
+        this.size = size;
+        this.lineSize = lineSize;
+        this.associativity = associativity;
+        this.writePolicy = writePolicy;
+        this.replacementPolicy = replacementPolicy;
+        lineShift = Integer.numberOfTrailingZeros(lineSize);
+        setMask = sets - 1;
+
+        lines = new int[sets * associativity];
+        dirty = new boolean[sets * associativity];
+        stamps = new long[sets * associativity];
+        owners = new long[sets * associativity][];
+        Arrays.fill(lines, -1);
+        random = 0x9E3779B97F4A7C15L;
+    }
+
+    // Returns an empty cache with the same configuration, such as the private cache of another CPU core.
+    CacheSimulator copy() {
+        return new CacheSimulator(size, lineSize, associativity, writePolicy, replacementPolicy);
+    }
+
+    // Simulates an access to a physical word address, counting the outcome into the counters of the process.
+    // Returns whether the access hit.
+    public boolean access(int address, boolean write, long[] counters) {
+        int line = address >>> lineShift;
+        int base = (line & setMask) * associativity;
+        clock++;
+
+        // Looks for the line in every way of its set.
+        for (int way = base; way < base + associativity; way++) {
+            if (lines[way] == line) {
+                counters[HITS]++;
+                if (replacementPolicy == ReplacementPolicy.LRU) {
+                    stamps[way] = clock;
+                }
+                store(way, write, counters);
+                return true;
+            }
+        }
+
+        // On a miss, fills an empty way, or evicts a line picked by the replacement policy.
+        counters[MISSES]++;
+        int victim = victim(base);
+        if (lines[victim] != -1) {
+            counters[EVICTIONS]++;
+            if (dirty[victim]) {
+                owners[victim][MEMORY_WRITES]++;
+            }
+        }
+        lines[victim] = line;
+        dirty[victim] = false;
+        owners[victim] = null;
+        stamps[victim] = clock;
+        store(victim, write, counters);
+        return false;
+    }
+
+    // Applies the write policy to a store into a cached line.
+    private void store(int way, boolean write, long[] counters) {
+        if (!write) {
+            return;
+        }
+        if (writePolicy == WritePolicy.WRITE_BACK) {
+            dirty[way] = true;
+            owners[way] = counters;
+        } else {
+            counters[MEMORY_WRITES]++;
+        }
+    }
+
+    // Picks the way of the set to fill: an empty way if there is one, otherwise the one chosen by the replacement policy.
+    // LRU and FIFO both evict the way with the oldest stamp, LRU refreshes the stamp on every hit while FIFO only sets it on a fill.
+    private int victim(int base) {
+        int oldest = base;
+        for (int way = base; way < base + associativity; way++) {
+            if (lines[way] == -1) {
+                return way;
+            }
+            if (stamps[way] < stamps[oldest]) {
+                oldest = way;
+            }
+        }
+        if (replacementPolicy == ReplacementPolicy.RANDOM) {
+            random ^= random << 13;
+            random ^= random >>> 7;
+            random ^= random << 17;
+            return base + (int) Long.remainderUnsigned(random, associativity);
+        }
+        return oldest;
+    }
+
+    // Returns a description of the configuration, for reports.
+    public String toString() {
+        return size + " words, " + lineSize + "-word lines, " + associativity + "-way, " + writePolicy + ", " + replacementPolicy;
+    }
+}
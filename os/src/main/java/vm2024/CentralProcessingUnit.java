@@ -0,0 +1,433 @@
+package vm2024;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// High class to represent the CPU, its features, and its data path cycle.
+class CentralProcessingUnit {
+    // Set of CPU registers.
+    public int[] registers;
+    // CPU Base Register for the program in its logical space; used to handle effective addressing.
+    public int dataMemoryOffset; 
+    // CPU Register for storing the Program Counter
+    public int PC;
+    // Number of instructions that this CPU has executed.
+    public long instructionsExecuted;
+    // Instruction and data cache simulators of this CPU, null when disabled.
+    public CacheSimulator instructionCache;
+    public CacheSimulator dataCache;
+    // Whether IO instructions stop the CPU, to be carried out by the DMA channel or by the process's own thread, instead of running synchronously.
+    public boolean blockOnIO;
+    // Number of the CPU, which is its core number in multi-core mode.
+    public int id;
+    // Execution counters of this CPU, null when metrics are disabled.
+    public ExecutionCounters counters;
+    // Execution tracer of this CPU, null when tracing is disabled.
+    public ExecutionTracer tracer;
+    // Access to Memory Manager and PCB.
+    public MemoryManagementUnit memory;
+    public ProcessControlBlock process;
+
+    // Constructor for initializing the CPU as a device, requires the MMU for memory access.
+    // The process, PC, and offset are loaded by the dispatcher.
+    CentralProcessingUnit(MemoryManagementUnit mmu) {
+
+        // Instantiates the variable for memory.
+        memory = mmu;
+
+        // Initializes the registers, with each one being set to 0.
+        registers = new int[16];
+    }
+
+    // Method used to carry out the fetch part of the data path cycle.
+    void fetch() {
+        // Adds the instruction from the PC to the instruction register for decoding.
+        registers[2] = memory.read(process.pageNumber, PC);
+    }
+
+    // Method used to decode the instruction from the above method and pass into execution.
+    int[] decode() {
+
+        // Decodes the instruction register into its packed form, which holds the instruction type, opcode, and operands.
+        long instruction = InstructionCache.decode(registers[2]);
+        int type = InstructionCache.type(instruction);
+        int opcode = InstructionCache.opcode(instruction);
+
+        // Creates the operations and operands from the instruction type, creating an stream of data that can be put into the ALU for execution.
+        // Note that the decode step handles this operation specific to the instruction type and manages the different registers and address lengths.
+        
+        // For Arithmetic Instructions, returns opcode, 3 registers, and the address.
+        if (type == 0) {    
+            int[] operation = {opcode,InstructionCache.first(instruction),InstructionCache.second(instruction),InstructionCache.third(instruction),InstructionCache.fourth(instruction)};
+            return operation;
+        }
+
+        // For Unconditional Jump Instructions, returns opcode and the address.
+        if (type == 2) {    
+            int[] operation = {opcode,InstructionCache.first(instruction)};
+            return operation;
+        }
+
+        // For Conditional Branch / Immediate Format and IO Instructions, returns opcode, 2 registers, and the address.
+        int[] operation = {opcode,InstructionCache.first(instruction),InstructionCache.second(instruction),InstructionCache.third(instruction)};
+        return operation;
+    }
+
+    // Method used to represent the ALU executing instructions for the data path cycle.
+    // Takes the stream of operation and operands from decode() and packs it into the same form as the instruction cache.
+    void execute(int[] operation) {
+        int[] slots = new int[5];
+        System.arraycopy(operation, 0, slots, 0, Math.min(operation.length, slots.length));
+        execute(InstructionCache.pack(0, slots[0], slots[1], slots[2], slots[3], slots[4]));
+    }
+
+    // A large switch statement that executes a function based on the opcode of a pre-decoded instruction.
+    void execute(long instruction) {
+        // Unpacks the operands of the instruction, in the same order as the operation arrays from decode().
+        int op1 = InstructionCache.first(instruction);
+        int op2 = InstructionCache.second(instruction);
+        int op3 = InstructionCache.third(instruction);
+
+        // Then uses a switch statement to represent all possible opcodes and carries out operation from the opcodes using the proper operands.
+        switch(InstructionCache.opcode(instruction)) {
+
+
+            // Uses a case for each opcode and carries out the operation with the operands using the registers and memory access as needed, also checks for the address being null to see if the register or address needs to be used for specific operations.
+            // Cases represent opcodes in numerical order as from the assignment table.
+            
+            // RD - Reads data at address or register.
+            case 0:
+            if (op3==0) {
+                registers[op1] = registers[op2];
+            } else {
+                registers[op1] = load(op3);
+            }
+            break;
+            
+            // WR - Writes data to address or register.
+            case 1:
+            if (op3==0) {
+                registers[op2] = registers[op1];
+            } else {
+                store(op3, registers[op1]);
+            }
+            break;
+
+            // ST - Stores data to address or register.
+            case 2:
+            if (op3==0) {
+                registers[op2] = registers[op1];
+            } else {
+                store(op3, registers[op1]);
+            }
+            break;
+
+            // LW - Loads data from register or address into other register.
+            case 3:
+            if (op3==0) {
+                registers[op1] = registers[op2];
+            } else {
+                registers[op1] = load(op3);
+            }
+            break;
+
+            // MOV - Transfers data from one register to another.
+            case 4:
+            registers[op1] = registers[op2];
+            break;
+
+            // ADD - Adds two registers into other the register.
+            case 5:
+            registers[op1] = registers[op2] + registers[op3];
+            break;
+
+            // SUB - Subtracts two registers into other the register.
+            case 6:
+            registers[op1] = registers[op2] - registers[op3];
+            break;
+
+            // MUL - Multiplies two registers into other the register.
+            case 7:
+            registers[op1] = registers[op2] * registers[op3];
+            break;
+
+            // DIV - Divides two registers into other the register.
+            case 8:
+            registers[op1] = registers[op2] / registers[op3];
+            break;
+            
+            // AND - Stores the AND of two registers into the other.
+            case 9:
+            registers[op1] = (registers[op2] == registers[op3]) ? 1 : 0;
+            break;
+
+            // OR - Stores the OR of two registers into the other.
+            case 10:
+            registers[op1] = (registers[op2] == 1 || registers[op3] == 1) ? 1 : 0;
+            break;
+
+            // MOVI - Copy the data from address into register.
+            case 11:
+            registers[op1] = load(op2);
+            break;
+
+            // ADDI - Add register by data from address.
+            case 12:
+            registers[op1] += load(op2);
+            break;
+
+            // MULI - Multiply register by data from address.
+            case 13:
+            registers[op1] = registers[op1] * load(op2);
+            break;
+
+            // DIVI - Divide register by data from address.
+            case 14:
+            registers[op1] = registers[op1] / load(op2);
+            break;
+
+            // LDI - Same as MOVI
+            case 15:
+            registers[op1] = load(op2);
+            break;
+
+            // SLT - Set register as 1 or 0 on register 2 < register 3.
+            case 16:
+            registers[op1] = (registers[op2] < registers[op3]) ? 1 : 0;
+            break;
+
+            // SLTI - Set register as 1 or 0 on register 2 < addressed data.
+            case 17:
+            registers[op1] = (registers[op2] < load(op3) ? 1 : 0);
+            break;
+            
+            // HTL - Stops the program.
+            case 18:
+            process.programCounter = process.instructionCount;
+            break;
+
+            // NOP - Move to next instruction.
+            case 19:
+            break;
+
+            // JMP - Jump PC to addressed 
+            // Unconditional jumps only carry an address, which sits in the first operand.
+            case 20:
+            process.programCounter = load(op1);
+            break;
+
+            // BEQ - Jumps to address if registers are equal.
+            case 21:
+            if (registers[op1] == registers[op2])
+                process.programCounter = load(op3);
+            break;
+
+            // BNE - Jumps to address if registers are unequal.
+            case 22:
+            if (registers[op1] != registers[op2])
+                process.programCounter = load(op3);
+            break;
+
+            // BEZ - Jumps to address if register is 0.
+            case 23:
+            if (registers[op1] == 0)
+                process.programCounter = load(op2);
+            break;
+
+            // BNZ - Jumps to address if register is not 0.
+            case 24:
+            if (registers[op1] != 0)
+                process.programCounter = load(op2);
+            break;
+
+            // BGZ - Jumps to address if register is positive.
+            case 25:
+            if (registers[op1] > 0)
+                process.programCounter = load(op2);
+            break;
+
+            // BLZ - Jumps to address if register is negative.
+            case 26:
+            if (registers[op1] < 0)
+                process.programCounter = load(op2);
+            break;
+        }
+    }
+
+    // Computes the effective address of an operand.
+    // Addresses in the program are byte offsets from the base register, so they are converted to word addresses in the process's logical space.
+    int effectiveAddress(int address) {
+        return dataMemoryOffset + (address >>> 2);
+    }
+
+    // Context switch operation that saves the CPU's registers and PC into the process's PCB.
+    void saveState(ProcessControlBlock pcb) {
+        System.arraycopy(registers, 0, pcb.registers, 0, registers.length);
+        pcb.programCounter = PC;
+    }
+
+    // Context switch operation that loads the CPU with the process's registers, PC, and base register from its PCB.
+    void restoreState(ProcessControlBlock pcb) {
+        process = pcb;
+        dataMemoryOffset = pcb.dataMemoryOffset;
+        PC = pcb.programCounter;
+        System.arraycopy(pcb.registers, 0, registers, 0, registers.length);
+    }
+
+    // Executes an instruction and records it in the trace, with the value of its destination register before and after.
+    // Dumps the trace when the instruction halts the process, and when it throws, in which case the instruction is recorded with its register unchanged.
+    void trace(long instruction) {
+        int word = registers[2];
+        int register = ExecutionTracer.destination(instruction);
+        int oldValue = register == ExecutionTracer.NO_REGISTER ? 0 : registers[register];
+        try {
+            execute(instruction);
+        } catch (RuntimeException e) {
+            tracer.record(process.jobId, PC, word, register, oldValue, oldValue);
+            try {
+                e.addSuppressed(new IllegalStateException("Execution trace written to " + tracer.dump(process.jobId, "fault")));
+            } catch (IOException dumpFailure) {
+                e.addSuppressed(dumpFailure);
+            }
+            throw e;
+        }
+        tracer.record(process.jobId, PC, word, register, oldValue, register == ExecutionTracer.NO_REGISTER ? 0 : registers[register]);
+        if (InstructionCache.opcode(instruction) == 18 && tracer.dumpsOnHalt()) {
+            try {
+                tracer.dump(process.jobId, "hlt");
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write the execution trace", e);
+            }
+        }
+    }
+
+    // Stops the process at an IO instruction, recording its request in the PCB for the DMA channel.
+    // The kernel posts the request once it has saved the process's state, and the process continues after the instruction when the transfer has completed.
+    void requestIO(long instruction) {
+        process.ioOpcode = InstructionCache.opcode(instruction);
+        process.ioRegister = InstructionCache.first(instruction);
+        process.ioAddress = effectiveAddress(InstructionCache.third(instruction));
+        process.waiting = true;
+        process.ioCompleted = false;
+    }
+
+    // Memory Operation used by the instructions that read from an address.
+    int load(int address) {
+        return read(effectiveAddress(address));
+    }
+
+    // Memory Operation used by the store instructions.
+    void store(int address, int value) {
+        write(effectiveAddress(address), value);
+    }
+
+    // Memory Operation that reads a word from the logical space of the process.
+    // With the data cache, the MMU translates the address once, and returns the physical address for the cache along with the word.
+    int read(int logicalAddress) {
+        if (counters != null) {
+            counters.memoryReads++;
+            process.memoryReads++;
+        }
+        if (dataCache != null) {
+            long read = memory.readWithAddress(process.pageNumber, logicalAddress);
+            dataCache.access(MemoryManagementUnit.addressOf(read), false, process.dataCacheCounters);
+            return MemoryManagementUnit.wordOf(read);
+        }
+        return memory.read(process.pageNumber, logicalAddress);
+    }
+
+    // Memory Operation that writes a word to the logical space of the process.
+    // The data cache sees the physical address that the MMU wrote, after the copy of a shared frame.
+    // Invalidates the pre-decoded instruction if the program wrote into its own code region.
+    void write(int logicalAddress, int value) {
+        if (counters != null) {
+            counters.memoryWrites++;
+            process.memoryWrites++;
+        }
+        int physicalAddress = memory.write(process.pageNumber, logicalAddress, value);
+        if (dataCache != null) {
+            dataCache.access(physicalAddress, true, process.dataCacheCounters);
+        }
+        if (logicalAddress < process.instructionCount) {
+            process.invalidateInstruction(logicalAddress);
+        }
+    }
+
+    // Arbitrary run method that performs the entire CPU data path cycle.
+    // Used to make kernel's code simpler.
+    // Executes from the process's pre-decoded instructions, and only fetches and decodes from memory when an entry has been invalidated.
+    // On the threaded-code engine, runs the instruction's pre-bound handler instead of the execute() switch.
+    // On the tiered engine, runs the compiled block starting at the PC when there is one, which retires every instruction of the block at once.
+    // While tracing, every instruction runs through the execute() switch, so each one can be recorded.
+    void run() {
+        InstructionCache instructions = process.instructions;
+        if (instructions.hasBlocks() && tracer == null) {
+            CompiledBlock block = instructions.block(PC);
+            if (block != null) {
+                // Every instruction of a block is fetched, so each one goes through the instruction cache.
+                if (instructionCache != null) {
+                    for (int i = 0; i < instructions.blockLength(PC); i++) {
+                        instructionCache.access(memory.translate(process.pageNumber, PC + i), false, process.instructionCacheCounters);
+                    }
+                }
+                if (counters != null) {
+                    counters.countBlock(instructions, PC, instructions.blockLength(PC));
+                }
+                try {
+                    block.execute(this);
+                } catch (RuntimeException e) {
+                    // A block moves the PC of the process to every instruction that can fault before running it, so the instructions before the faulting one have retired, as they would on the interpreter.
+                    instructionsExecuted += process.programCounter - PC;
+                    PC = process.programCounter;
+                    throw e;
+                }
+                instructionsExecuted += instructions.blockLength(PC);
+                return;
+            }
+            if (instructions.countCycle(PC)) {
+                boolean accepted = TieredCompiler.compile(instructions, PC, dataMemoryOffset);
+                if (counters != null) {
+                    if (!accepted) {
+                        counters.compileFailures++;
+                    } else if (instructions.block(PC) != null) {
+                        counters.compiledBlocks++;
+                    }
+                }
+            }
+        }
+        if (instructionCache != null) {
+            instructionCache.access(memory.translate(process.pageNumber, PC), false, process.instructionCacheCounters);
+        }
+        long instruction = instructions.get(PC);
+        if (instruction == 0) {
+            fetch();
+            instruction = instructions.load(PC, registers[2]);
+        } else {
+            registers[2] = instructions.word(PC);
+        }
+        if (counters != null) {
+            counters.count(instruction);
+        }
+        if (blockOnIO && InstructionCache.isIO(instruction)) {
+            if (tracer != null) {
+                tracer.record(process.jobId, PC, registers[2], ExecutionTracer.NO_REGISTER, 0, 0);
+            }
+            requestIO(instruction);
+            instructionsExecuted++;
+            return;
+        }
+        if (tracer != null) {
+            trace(instruction);
+        } else if (instructions.hasHandlers()) {
+            InstructionHandler handler = instructions.handler(PC);
+            if (handler == null) {
+                handler = ThreadedCode.translate(instruction, dataMemoryOffset);
+                instructions.setHandler(PC, handler);
+            }
+            handler.execute(this);
+        } else {
+            execute(instruction);
+        }
+        instructionsExecuted++;
+    }
+}
@@ -0,0 +1,232 @@
+package vm2024;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+// A class for checkpoints, which save the whole state of the machine to a binary snapshot and restore it.
+// A snapshot holds the disc of the IO Controller, physical memory with its free frames and page tables, every PCB of the job queue, the order of the ready queue, and the CPU's registers, PC, and base register.
+// All values are big-endian, and memory and the disc are written as flat arrays of words, so restoring is a few bulk copies instead of loading and re-running the decks.
+// Pre-decoded instructions, handlers, and compiled blocks are not saved, as they are rebuilt from memory when the snapshot is restored.
+class Checkpoint {
+
+    // Magic number at the start of every snapshot, the characters "VMSS".
+    static final int MAGIC = 0x564D5353;
+    static final int VERSION = 2;
+
+    // Size of the header: magic number, version, index of the next job to admit, number of finished jobs, the index of the running job, and the flags of the snapshot.
+    static final int HEADER_SIZE = 24;
+    // Size of a PCB: 18 ints, 16 registers, and 7 longs.
+    static final int PCB_SIZE = 18 * 4 + 16 * 4 + 7 * 8;
+    // Size of the CPU: 16 registers, the PC, the base register, and the number of instructions executed.
+    static final int CPU_SIZE = 16 * 4 + 4 + 4 + 8;
+
+    // Flags of a PCB in a snapshot.
+    private static final int READY = 1;
+    private static final int TERMINATED = 2;
+    private static final int WAITING = 4;
+    private static final int ADMITTED = 8;
+    private static final int IO_COMPLETED = 16;
+
+    // Flag of a snapshot whose memory shares code pages between page tables.
+    private static final int SHARED_CODE = 1;
+
+    // Saves the state of the OS to a snapshot file, with the process that is running on the CPU, or null if there is none.
+    // With a DMA channel, the caller holds the channel's lock, so every IO request is saved as either completed or not started.
+    // The running process's state must already be saved in its PCB. The file is written next to the snapshot and then moved over it, so an interrupted checkpoint never leaves a broken snapshot.
+    static void save(OperatingSystem os, Path path, ProcessControlBlock running) throws IOException {
+        IdentityHashMap<ProcessControlBlock, Integer> indexes = new IdentityHashMap<ProcessControlBlock, Integer>();
+        for (int i = 0; i < os.jobQueue.size(); i++) {
+            indexes.put(os.jobQueue.get(i), i);
+        }
+
+        int size = HEADER_SIZE + os.IOC.snapshotSize() + os.MMU.snapshotSize() + 4 + os.jobQueue.size() * PCB_SIZE + 4 + os.readyQueue.size() * 4 + CPU_SIZE;
+        ByteBuffer snapshot = ByteBuffer.allocate(size);
+        long now = System.nanoTime();
+
+        snapshot.putInt(MAGIC).putInt(VERSION).putInt(os.nextJob).putInt(os.finishedJobs).putInt(running == null ? -1 : indexes.get(running));
+        snapshot.putInt(os.MMU.sharesCode() ? SHARED_CODE : 0);
+        os.IOC.save(snapshot);
+        os.MMU.save(snapshot);
+
+        snapshot.putInt(os.jobQueue.size());
+        for (ProcessControlBlock pcb : os.jobQueue) {
+            savePCB(snapshot, pcb, now);
+        }
+        snapshot.putInt(os.readyQueue.size());
+        for (ProcessControlBlock pcb : os.readyQueue) {
+            snapshot.putInt(indexes.get(pcb));
+        }
+
+        CentralProcessingUnit cpu = os.CPU;
+        for (int register : cpu.registers) {
+            snapshot.putInt(register);
+        }
+        snapshot.putInt(cpu.PC).putInt(cpu.dataMemoryOffset).putLong(cpu.instructionsExecuted);
+        snapshot.flip();
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel outputPort = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (snapshot.hasRemaining()) {
+                outputPort.write(snapshot);
+            }
+            outputPort.force(false);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Writes a PCB to a snapshot. Times are saved relative to the time of the snapshot, as nanoTime() has no meaning in another JVM.
+    private static void savePCB(ByteBuffer snapshot, ProcessControlBlock pcb, long now) {
+        int flags = (pcb.ready ? READY : 0) | (pcb.terminated ? TERMINATED : 0) | (pcb.waiting ? WAITING : 0) | (pcb.instructions != null ? ADMITTED : 0)
+            | (pcb.ioCompleted ? IO_COMPLETED : 0);
+        snapshot.putInt(pcb.jobId).putInt(pcb.priority).putInt(pcb.programCounter).putInt(pcb.dataMemoryOffset);
+        snapshot.putInt(pcb.pageNumber).putInt(pcb.instructionCount).putInt(pcb.dataOffset).putInt(pcb.inputBufferSize);
+        snapshot.putInt(pcb.outputBufferSize).putInt(pcb.tempBufferSize).putInt(pcb.discAddress).putInt(pcb.wordCount);
+        snapshot.putInt(flags).putInt(pcb.ioOpcode).putInt(pcb.ioRegister).putInt(pcb.ioAddress).putInt(pcb.ioRequests).putInt(pcb.contextSwitches);
+        for (int register : pcb.registers) {
+            snapshot.putInt(register);
+        }
+        snapshot.putLong(now - pcb.arrivalTime).putLong(pcb.terminated ? now - pcb.completionTime : 0).putLong(pcb.cpuTime).putLong(pcb.contextSwitchTime);
+        snapshot.putLong(pcb.instructionsExecuted).putLong(pcb.memoryReads).putLong(pcb.memoryWrites);
+    }
+
+    // Restores the state of the OS from a snapshot file, replacing its devices, queues, and CPU state.
+    // The running process goes to the front of the ready queue, so the short-term scheduler dispatches it first under the default policy.
+    // A process whose IO request had completed, with its interrupt not yet serviced, is ready again, as the transfer is already in its registers or memory.
+    // Processes whose request had not been carried out yet post it again.
+    static void restore(OperatingSystem os, Path path) throws IOException {
+        MappedByteBuffer snapshot;
+        try (FileChannel inputPort = FileChannel.open(path, StandardOpenOption.READ)) {
+            snapshot = inputPort.map(FileChannel.MapMode.READ_ONLY, 0, inputPort.size());
+        }
+        if (snapshot.remaining() < HEADER_SIZE || snapshot.getInt() != MAGIC) {
+            throw new IOException(path + " is not a VM snapshot");
+        }
+        int version = snapshot.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + path);
+        }
+        int nextJob = snapshot.getInt();
+        int finishedJobs = snapshot.getInt();
+        int running = snapshot.getInt();
+        int flags = snapshot.getInt();
+        long now = System.nanoTime();
+
+        os.IOC = new IOController(snapshot);
+        os.MMU = new MemoryManagementUnit(snapshot);
+        os.connectDMA();
+        // Memory that shared code pages keeps sharing them, whatever this OS's setting, as its page tables map the same frames.
+        os.enableCodeSharing((flags & SHARED_CODE) != 0 || os.shareCode);
+
+        int jobs = snapshot.getInt();
+        os.jobQueue = new ArrayList<ProcessControlBlock>(jobs);
+        for (int i = 0; i < jobs; i++) {
+            os.jobQueue.add(restorePCB(snapshot, now));
+        }
+        os.nextJob = nextJob;
+        os.finishedJobs = finishedJobs;
+
+        // Rebuilds the pre-decoded instructions of every process in memory.
+        for (ProcessControlBlock pcb : os.jobQueue) {
+            if (pcb.instructions != null) {
+                os.prepare(pcb);
+            }
+        }
+
+        // A running process that was waiting for IO only becomes ready through its request below.
+        os.readyQueue.clear();
+        if (running >= 0 && !os.jobQueue.get(running).waiting) {
+            os.readyQueue.add(os.jobQueue.get(running));
+        }
+        int ready = snapshot.getInt();
+        for (int i = 0; i < ready; i++) {
+            os.readyQueue.add(os.jobQueue.get(snapshot.getInt()));
+        }
+
+        // Carries out the IO requests of the waiting processes that had not completed, on the DMA channel when there is one.
+        for (ProcessControlBlock pcb : os.jobQueue) {
+            if (!pcb.waiting) {
+                continue;
+            }
+            if (pcb.ioCompleted) {
+                pcb.waiting = false;
+                os.readyQueue.add(pcb);
+            } else if (os.DMA != null) {
+                os.DMA.submit(pcb);
+            } else {
+                DirectMemoryAccessController.transfer(os.MMU, pcb);
+                pcb.waiting = false;
+                os.readyQueue.add(pcb);
+            }
+        }
+
+        CentralProcessingUnit cpu = os.CPU;
+        cpu.memory = os.MMU;
+        cpu.blockOnIO = os.DMA != null;
+        for (int i = 0; i < cpu.registers.length; i++) {
+            cpu.registers[i] = snapshot.getInt();
+        }
+        cpu.PC = snapshot.getInt();
+        cpu.dataMemoryOffset = snapshot.getInt();
+        cpu.instructionsExecuted = snapshot.getLong();
+    }
+
+    // Reads a PCB from a snapshot. Admitted processes are marked with an empty instruction cache until they are prepared again.
+    private static ProcessControlBlock restorePCB(ByteBuffer snapshot, long now) {
+        ProcessControlBlock pcb = new ProcessControlBlock();
+        pcb.jobId = snapshot.getInt();
+        pcb.priority = snapshot.getInt();
+        pcb.programCounter = snapshot.getInt();
+        pcb.dataMemoryOffset = snapshot.getInt();
+        pcb.pageNumber = snapshot.getInt();
+        pcb.instructionCount = snapshot.getInt();
+        pcb.dataOffset = snapshot.getInt();
+        pcb.inputBufferSize = snapshot.getInt();
+        pcb.outputBufferSize = snapshot.getInt();
+        pcb.tempBufferSize = snapshot.getInt();
+        pcb.discAddress = snapshot.getInt();
+        pcb.wordCount = snapshot.getInt();
+        int flags = snapshot.getInt();
+        pcb.ready = (flags & READY) != 0;
+        pcb.terminated = (flags & TERMINATED) != 0;
+        pcb.waiting = (flags & WAITING) != 0;
+        pcb.ioCompleted = (flags & IO_COMPLETED) != 0;
+        pcb.ioOpcode = snapshot.getInt();
+        pcb.ioRegister = snapshot.getInt();
+        pcb.ioAddress = snapshot.getInt();
+        pcb.ioRequests = snapshot.getInt();
+        pcb.contextSwitches = snapshot.getInt();
+        for (int i = 0; i < pcb.registers.length; i++) {
+            pcb.registers[i] = snapshot.getInt();
+        }
+        pcb.arrivalTime = now - snapshot.getLong();
+        pcb.completionTime = now - snapshot.getLong();
+        pcb.cpuTime = snapshot.getLong();
+        pcb.contextSwitchTime = snapshot.getLong();
+        pcb.instructionsExecuted = snapshot.getLong();
+        pcb.memoryReads = snapshot.getLong();
+        pcb.memoryWrites = snapshot.getLong();
+        if ((flags & ADMITTED) != 0 && !pcb.terminated) {
+            pcb.instructions = new InstructionCache(0);
+        }
+        return pcb;
+    }
+
+    // Command line entry point for resuming a batch from a snapshot: Checkpoint <snapshot file>
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: Checkpoint <snapshot file>");
+            System.exit(2);
+        }
+        OperatingSystem os = new OperatingSystem();
+        os.resume(Paths.get(args[0]));
+    }
+}
@@ -0,0 +1,46 @@
+package vm2024;
+
+// Clock policy, an approximation of LRU that keeps a reference bit for every frame.
+// The hand sweeps the frames in order, giving every referenced page a second chance by clearing its bit, and evicts the first page whose bit is already clear.
+class ClockReplacement implements PageReplacementPolicy {
+
+    private boolean[] used;
+    private boolean[] referenced;
+    private int hand;
+
+    public void initialize(int frames) {
+        used = new boolean[frames];
+        referenced = new boolean[frames];
+        hand = 0;
+    }
+
+    public void loaded(int frame) {
+        used[frame] = true;
+        referenced[frame] = true;
+    }
+
+    public void referenced(int frame) {
+        referenced[frame] = true;
+    }
+
+    public void released(int frame) {
+        used[frame] = false;
+        referenced[frame] = false;
+    }
+
+    public int victim() {
+        // Two sweeps are enough, as the first one clears every reference bit.
+        for (int i = 0; i < 2 * used.length; i++) {
+            int frame = hand;
+            hand = (hand + 1) % used.length;
+            if (!used[frame]) {
+                continue;
+            }
+            if (!referenced[frame]) {
+                return frame;
+            }
+            referenced[frame] = false;
+        }
+        throw new IllegalStateException("No frame in use to evict");
+    }
+}
@@ -0,0 +1,7 @@
+package vm2024;
+
+// Interface for a basic block of a program that has been compiled to JVM bytecode by the tiered compiler.
+// Executing a block has the same effect as interpreting each of its instructions in turn, including the PC updates of the driver between them.
+interface CompiledBlock {
+    void execute(CentralProcessingUnit cpu);
+}
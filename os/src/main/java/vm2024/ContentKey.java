@@ -0,0 +1,22 @@
+package vm2024;
+
+import java.util.Arrays;
+
+// A class for the key of a run of words, compared by content, for finding the frames and the pre-decoded programs that jobs can share.
+class ContentKey {
+    final int[] words;
+    private final int hash;
+
+    ContentKey(int[] words) {
+        this.words = words;
+        hash = Arrays.hashCode(words);
+    }
+
+    public int hashCode() {
+        return hash;
+    }
+
+    public boolean equals(Object other) {
+        return other instanceof ContentKey && hash == ((ContentKey) other).hash && Arrays.equals(words, ((ContentKey) other).words);
+    }
+}
@@ -0,0 +1,23 @@
+package vm2024;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// A CPU saved the state of a process, or restored it.
+@Name("vm2024.ContextSwitch")
+@Label("Context Switch")
+@Category("VM2024")
+@Description("A CPU saved the state of a preempted or blocked process, or restored the state of a dispatched one")
+class ContextSwitchEvent extends Event {
+    @Label("Job Id")
+    int jobId;
+
+    @Label("CPU")
+    int cpu;
+
+    @Label("Kind")
+    String kind;
+}
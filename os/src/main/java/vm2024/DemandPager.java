@@ -0,0 +1,154 @@
+package vm2024;
+
+import java.util.Arrays;
+
+// A class for the pager of demand-paged memory, which handles the page faults of the MMU.
+// Keeps which page of which process every frame holds and whether the frame has been written since it was loaded.
+// A page is loaded from the swap area if it has been written back there, and from the job's words on the virtual disc otherwise.
+// Dirty pages are written back to the swap area when they are evicted, while clean pages are dropped, as their copy on the disc or in the swap area is still current.
+// The MMU only calls the pager while holding its lock.
+class DemandPager {
+
+    // The policy that picks the frame to evict, and the swap area that dirty pages are written back to.
+    private PageReplacementPolicy policy;
+    private SwapSpace swap;
+    // The kernel, whose virtual disc holds the words of the jobs.
+    private OperatingSystem kernel;
+
+    // The process that owns each page table, indexed by the PCB's page number, for loading its pages from the disc and counting its faults.
+    private ProcessControlBlock[] processes;
+    // The swap slot of every page of each page table, or -1 when the page has never been written back.
+    private int[][] swapSlots;
+
+    // The page table and the page that each frame holds, and whether the frame has been written since the page was loaded.
+    private int[] frameTables;
+    private int[] framePages;
+    private boolean[] dirty;
+
+    // Totals of the page faults, evictions, and write-backs of every process.
+    private long faults;
+    private long evictions;
+    private long writeBacks;
+
+    // Constructor for a pager of the given number of frames, which evicts pages as the policy decides and writes them back to the swap area.
+    DemandPager(int frames, PageReplacementPolicy policy, SwapSpace swap, OperatingSystem kernel) {
+        this.policy = policy;
+        this.swap = swap;
+        this.kernel = kernel;
+        policy.initialize(frames);
+        processes = new ProcessControlBlock[16];
+        swapSlots = new int[16][];
+        frameTables = new int[frames];
+        framePages = new int[frames];
+        dirty = new boolean[frames];
+    }
+
+    // Registers the process that a new page table belongs to, none of whose pages are in memory yet.
+    void admit(ProcessControlBlock pcb, int pages) {
+        if (pcb.pageNumber >= processes.length) {
+            int length = Math.max(processes.length * 2, pcb.pageNumber + 1);
+            processes = Arrays.copyOf(processes, length);
+            swapSlots = Arrays.copyOf(swapSlots, length);
+        }
+        processes[pcb.pageNumber] = pcb;
+        int[] slots = new int[pages];
+        Arrays.fill(slots, -1);
+        swapSlots[pcb.pageNumber] = slots;
+    }
+
+    // Loads a page of a process into a frame, from the swap area or the virtual disc, and counts the fault.
+    void load(int pageNumber, int page, int frame, int[] memory) {
+        ProcessControlBlock pcb = processes[pageNumber];
+        int offset = frame << MemoryManagementUnit.FRAME_SHIFT;
+        int slot = swapSlots[pageNumber][page];
+        if (slot >= 0) {
+            swap.read(slot, memory, offset);
+        } else {
+            // Words past the end of the job are zero, as they would be after a full load.
+            int first = page << MemoryManagementUnit.FRAME_SHIFT;
+            for (int i = 0; i < MemoryManagementUnit.FRAME_SIZE; i++) {
+                memory[offset + i] = first + i < pcb.wordCount ? kernel.IOC.read(pcb.discAddress + first + i) : 0;
+            }
+        }
+
+        frameTables[frame] = pageNumber;
+        framePages[frame] = page;
+        dirty[frame] = false;
+        policy.loaded(frame);
+        pcb.pageFaults++;
+        faults++;
+    }
+
+    // Records an access to a frame, which makes the frame dirty when it is a write.
+    void referenced(int frame, boolean write) {
+        policy.referenced(frame);
+        if (write) {
+            dirty[frame] = true;
+        }
+    }
+
+    // Evicts the page that the policy picks, writing it back to the swap area if it is dirty, and unmaps it from its page table.
+    // Returns the frame that has been freed.
+    int evict(int[] memory, int[][] pageTables) {
+        int frame = policy.victim();
+        int pageNumber = frameTables[frame];
+        int page = framePages[frame];
+        if (dirty[frame]) {
+            int slot = swapSlots[pageNumber][page];
+            if (slot < 0) {
+                slot = swap.allocate();
+                swapSlots[pageNumber][page] = slot;
+            }
+            swap.write(slot, memory, frame << MemoryManagementUnit.FRAME_SHIFT);
+            dirty[frame] = false;
+            writeBacks++;
+        }
+        pageTables[pageNumber][page] = MemoryManagementUnit.NOT_PRESENT;
+        policy.released(frame);
+        processes[pageNumber].pageEvictions++;
+        evictions++;
+        return frame;
+    }
+
+    // Forgets a frame that has been freed because its process terminated.
+    void released(int frame) {
+        dirty[frame] = false;
+        policy.released(frame);
+    }
+
+    // Forgets a page table that has been released, freeing its swap slots.
+    void release(int pageNumber) {
+        for (int slot : swapSlots[pageNumber]) {
+            if (slot >= 0) {
+                swap.free(slot);
+            }
+        }
+        swapSlots[pageNumber] = null;
+        processes[pageNumber] = null;
+    }
+
+    // Returns the replacement policy of the pager.
+    PageReplacementPolicy getPolicy() {
+        return policy;
+    }
+
+    // Returns the total number of page faults.
+    long getFaults() {
+        return faults;
+    }
+
+    // Returns the total number of evicted pages.
+    long getEvictions() {
+        return evictions;
+    }
+
+    // Returns the total number of dirty pages written back to the swap area.
+    long getWriteBacks() {
+        return writeBacks;
+    }
+
+    // Returns the swap area of the pager.
+    SwapSpace getSwap() {
+        return swap;
+    }
+}
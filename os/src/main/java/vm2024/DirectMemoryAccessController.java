@@ -0,0 +1,147 @@
+package vm2024;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+// A class for the DMA channel, which carries out the transfers of IO instructions asynchronously.
+// When a process reaches an IO instruction, the CPU stops it, and the kernel posts the process to the channel as a request and dispatches other processes.
+// The channel's own thread moves the word between the process's memory and its saved registers, then raises an IO-completion interrupt, which the kernel services by making the process ready again.
+// Requests are only posted after the process's state has been saved, so the channel and the CPUs never touch the same registers at the same time.
+// Transfers go straight to the MMU and bypass the CPU caches, as they would on a real DMA channel.
+// Every transfer holds the channel's lock, so a checkpoint that holds it sees each request either completed or not started.
+class DirectMemoryAccessController {
+
+    // Opcodes of the IO instructions.
+    static final int RD = 0;
+    static final int WR = 1;
+
+    // Memory that the channel transfers to and from, and the kernel that it interrupts.
+    private MemoryManagementUnit memory;
+    private OperatingSystem kernel;
+    // Simulated time that the device takes for each transfer, in nanoseconds.
+    private long latency;
+
+    // Queue of the processes waiting for a transfer, and the interrupt line of the processes whose transfer has completed.
+    private LinkedBlockingQueue<ProcessControlBlock> requests;
+    private ConcurrentLinkedQueue<ProcessControlBlock> interrupts;
+    // Number of requests that have been posted and not yet serviced by the kernel.
+    private AtomicInteger pending;
+    // Number of completed transfers, and the failure that stopped the channel.
+    private volatile long transfers;
+    private volatile Throwable failure;
+
+    private Thread channel;
+
+    // Constructor for a channel between the MMU and the kernel, with the given device latency per transfer.
+    DirectMemoryAccessController(MemoryManagementUnit memory, OperatingSystem kernel, long latency) {
+        this.memory = memory;
+        this.kernel = kernel;
+        this.latency = latency;
+        requests = new LinkedBlockingQueue<ProcessControlBlock>();
+        interrupts = new ConcurrentLinkedQueue<ProcessControlBlock>();
+        pending = new AtomicInteger();
+    }
+
+    // Starts the thread of the channel.
+    void start() {
+        channel = new Thread(this::service, "DMA");
+        channel.setDaemon(true);
+        channel.start();
+    }
+
+    // Stops the thread of the channel and waits for it to exit.
+    void shutdown() {
+        if (channel == null) {
+            return;
+        }
+        channel.interrupt();
+        try {
+            channel.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel = null;
+    }
+
+    // Posts the IO request of a waiting process, whose state has already been saved in its PCB.
+    void submit(ProcessControlBlock pcb) {
+        pending.incrementAndGet();
+        requests.add(pcb);
+    }
+
+    // Returns the next process whose transfer has completed, or null if no interrupt is pending.
+    // Throws if the channel has failed, as its remaining requests would never complete.
+    ProcessControlBlock nextInterrupt() {
+        if (failure != null) {
+            throw new IllegalStateException("The DMA channel failed", failure);
+        }
+        ProcessControlBlock pcb = interrupts.poll();
+        if (pcb != null) {
+            pending.decrementAndGet();
+        }
+        return pcb;
+    }
+
+    // Returns whether an interrupt is waiting to be serviced, or the channel has failed.
+    boolean hasInterrupt() {
+        return !interrupts.isEmpty() || failure != null;
+    }
+
+    // Returns the number of processes that are waiting for a transfer or for their interrupt to be serviced.
+    int getPending() {
+        return pending.get();
+    }
+
+    // Returns the number of completed transfers.
+    long getTransfers() {
+        return transfers;
+    }
+
+    // The loop of the channel's thread, which services the requests in order until the channel is shut down.
+    private void service() {
+        try {
+            while (true) {
+                ProcessControlBlock pcb = requests.take();
+                simulateLatency(latency);
+                synchronized (this) {
+                    transfer(memory, pcb);
+                    pcb.ioCompleted = true;
+                    transfers++;
+                }
+                interrupts.add(pcb);
+                kernel.interrupt();
+            }
+        } catch (InterruptedException e) {
+            // The channel has been shut down.
+        } catch (Throwable e) {
+            failure = e;
+            kernel.interrupt();
+        }
+    }
+
+    // Moves the word of an IO request: RD reads the addressed word into the register, WR writes the register to the address.
+    // A write into the process's code region invalidates the pre-decoded instruction there, as a store from the CPU would.
+    static void transfer(MemoryManagementUnit memory, ProcessControlBlock pcb) {
+        if (pcb.ioOpcode == RD) {
+            pcb.registers[pcb.ioRegister] = memory.read(pcb.pageNumber, pcb.ioAddress);
+        } else {
+            memory.write(pcb.pageNumber, pcb.ioAddress, pcb.registers[pcb.ioRegister]);
+            if (pcb.ioAddress < pcb.instructionCount) {
+                pcb.invalidateInstruction(pcb.ioAddress);
+            }
+        }
+    }
+
+    // Simulates the time that the device takes for a transfer.
+    static void simulateLatency(long nanos) throws InterruptedException {
+        long deadline = System.nanoTime() + nanos;
+        for (long left = nanos; left > 0; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package vm2024;
+
+// A class for turning instruction words back into assembly text, for traces and reports.
+class Disassembler {
+
+    // Mnemonics of the opcodes, in opcode order.
+    static final String[] MNEMONICS = {
+        "RD", "WR", "ST", "LW", "MOV", "ADD", "SUB", "MUL", "DIV", "AND", "OR", "MOVI", "ADDI", "MULI",
+        "DIVI", "LDI", "SLT", "SLTI", "HLT", "NOP", "JMP", "BEQ", "BNE", "BEZ", "BNZ", "BGZ", "BLZ"
+    };
+
+    // Returns the mnemonic of an opcode, or its number in hex if the opcode is unknown.
+    static String mnemonic(int opcode) {
+        return opcode < MNEMONICS.length ? MNEMONICS[opcode] : String.format("0x%02X", opcode);
+    }
+
+    // Disassembles an instruction word, with its operands in the same order as the decode step.
+    static String disassemble(int word) {
+        long instruction = InstructionCache.decode(word);
+        int opcode = InstructionCache.opcode(instruction);
+        String mnemonic = mnemonic(opcode);
+
+        // Arithmetic Instructions have 3 registers.
+        if (InstructionCache.type(instruction) == 0) {
+            return String.format("%s r%d, r%d, r%d", mnemonic, InstructionCache.first(instruction), InstructionCache.second(instruction), InstructionCache.third(instruction));
+        }
+
+        // Unconditional Jump Instructions only have a 24-bit address, which HLT and NOP do not use.
+        if (InstructionCache.type(instruction) == 2) {
+            if (opcode == 18 || opcode == 19) {
+                return mnemonic;
+            }
+            return String.format("%s 0x%06X", mnemonic, InstructionCache.first(instruction));
+        }
+
+        // Conditional Branch / Immediate and IO Instructions have 2 registers and a 16-bit address.
+        return String.format("%s r%d, r%d, 0x%04X", mnemonic, InstructionCache.first(instruction), InstructionCache.second(instruction), InstructionCache.third(instruction));
+    }
+}
@@ -0,0 +1,23 @@
+package vm2024;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// The short-term scheduler picked a process to run on a CPU.
+@Name("vm2024.Dispatch")
+@Label("Dispatch")
+@Category("VM2024")
+@Description("The short-term scheduler picked a process to run on a CPU")
+class DispatchEvent extends Event {
+    @Label("Job Id")
+    int jobId;
+
+    @Label("CPU")
+    int cpu;
+
+    @Label("Ready Processes")
+    int readyProcesses;
+}
@@ -0,0 +1,36 @@
+package vm2024;
+
+// The execution counters of a CPU, kept when the OS runs with metrics enabled.
+// Every CPU has its own counters, which only the thread running that CPU writes, so counting needs no synchronization.
+// A CPU without counters skips counting with a single null check per cycle and per memory access.
+class ExecutionCounters {
+
+    // Number of retired instructions of every opcode.
+    public long[] opcodeCounts = new long[64];
+    // Number of data path cycles, and the cycles that ran a compiled block.
+    public long cycles;
+    public long blockCycles;
+    // Number of words read from and written to memory by the programs.
+    public long memoryReads;
+    public long memoryWrites;
+    // Time that processes ran on the CPU, in nanoseconds.
+    public long cpuTime;
+    // Number of blocks that the tiered compiler compiled, and blocks whose generated class the JVM refused, which run on the interpreter instead.
+    public long compiledBlocks;
+    public long compileFailures;
+
+    // Counts a cycle that retires one instruction.
+    void count(long instruction) {
+        cycles++;
+        opcodeCounts[InstructionCache.opcode(instruction)]++;
+    }
+
+    // Counts a cycle that runs the compiled block starting at the index, retiring every instruction of the block.
+    void countBlock(InstructionCache instructions, int start, int length) {
+        cycles++;
+        blockCycles++;
+        for (int i = start; i < start + length; i++) {
+            opcodeCounts[InstructionCache.opcode(instructions.get(i))]++;
+        }
+    }
+}
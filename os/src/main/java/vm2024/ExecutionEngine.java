@@ -0,0 +1,10 @@
+package vm2024;
+
+// The execution engines that the driver can run programs with.
+// SWITCH runs each pre-decoded instruction through the CPU's execute() switch, THREADED runs pre-bound instruction handlers.
+// TIERED interprets with the switch, and compiles hot basic blocks to JVM bytecode with the TieredCompiler.
+enum ExecutionEngine {
+    SWITCH,
+    THREADED,
+    TIERED
+}
@@ -0,0 +1,117 @@
+package vm2024;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// A class for the execution tracer of a CPU, which keeps the last instructions that the CPU retired in a ring buffer.
+// Each record holds the job id, the PC, the raw instruction word, and the destination register with its value before and after the instruction.
+// The records live in one preallocated int array, so recording an instruction never allocates.
+// The buffer is dumped to a binary trace file when a process halts, when an instruction throws, such as a division by zero, or on request; TraceReader prints a trace next to its disassembly.
+class ExecutionTracer {
+
+    // Magic number at the start of every trace file, the characters "VMTR".
+    static final int MAGIC = 0x564D5452;
+    static final int VERSION = 1;
+    // Size of the file header in bytes: magic number, version, CPU number, and number of records.
+    static final int HEADER_SIZE = 16;
+
+    // Fields of a record, and the number of ints in a record.
+    static final int JOB = 0;
+    static final int PC = 1;
+    static final int WORD = 2;
+    static final int REGISTER = 3;
+    static final int OLD_VALUE = 4;
+    static final int NEW_VALUE = 5;
+    static final int RECORD_SIZE = 6;
+    // Register field of an instruction that does not write a register.
+    static final int NO_REGISTER = -1;
+
+    // The ring buffer of records, the number of records it holds, the index of the next record to write, and the number of records written so far.
+    private int[] records;
+    private int depth;
+    private int next;
+    private long recorded;
+
+    // The CPU that the tracer belongs to, the directory of the trace files, and whether the buffer is dumped whenever a process halts.
+    private int cpu;
+    private Path directory;
+    private boolean dumpOnHalt;
+
+    // Constructor for a tracer of the given depth in records.
+    ExecutionTracer(int depth, int cpu, Path directory, boolean dumpOnHalt) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Trace depth must be positive: " + depth);
+        }
+        this.depth = depth;
+        this.cpu = cpu;
+        this.directory = directory;
+        this.dumpOnHalt = dumpOnHalt;
+        records = new int[depth * RECORD_SIZE];
+    }
+
+    // Records a retired instruction, overwriting the oldest record when the buffer is full.
+    void record(int jobId, int pc, int word, int register, int oldValue, int newValue) {
+        int i = next * RECORD_SIZE;
+        records[i + JOB] = jobId;
+        records[i + PC] = pc;
+        records[i + WORD] = word;
+        records[i + REGISTER] = register;
+        records[i + OLD_VALUE] = oldValue;
+        records[i + NEW_VALUE] = newValue;
+        if (++next == depth) {
+            next = 0;
+        }
+        recorded++;
+    }
+
+    // Returns whether the buffer is dumped whenever a process halts.
+    boolean dumpsOnHalt() {
+        return dumpOnHalt;
+    }
+
+    // Returns the number of records in the buffer.
+    int size() {
+        return (int) Math.min(recorded, depth);
+    }
+
+    // Dumps the records of the buffer, oldest first, to a trace file named after the CPU, the job, and the reason for the dump.
+    // Returns the path of the file. A dump requested by another thread while the CPU runs may hold a record that is being written.
+    Path dump(int jobId, String reason) throws IOException {
+        Files.createDirectories(directory);
+        Path file = directory.resolve(String.format("trace-cpu%d-job%d-%s.bin", cpu, jobId, reason));
+        int size = size();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + size * RECORD_SIZE * 4);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(cpu).putInt(size);
+        int first = size < depth ? 0 : next;
+        for (int r = 0; r < size; r++) {
+            int i = ((first + r) % depth) * RECORD_SIZE;
+            for (int field = 0; field < RECORD_SIZE; field++) {
+                buffer.putInt(records[i + field]);
+            }
+        }
+        buffer.flip();
+        try (FileChannel outputPort = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                outputPort.write(buffer);
+            }
+        }
+        return file;
+    }
+
+    // Returns the register that a pre-decoded instruction writes, or NO_REGISTER if it only writes memory or the PC.
+    // Follows the cases of CentralProcessingUnit.execute(): WR and ST write the second register when they have no address, the other instructions up to SLTI write the first.
+    static int destination(long instruction) {
+        int opcode = InstructionCache.opcode(instruction);
+        if (opcode == 1 || opcode == 2) {
+            return InstructionCache.third(instruction) == 0 ? InstructionCache.second(instruction) : NO_REGISTER;
+        }
+        if (opcode <= 17) {
+            return InstructionCache.first(instruction);
+        }
+        return NO_REGISTER;
+    }
+}
@@ -0,0 +1,20 @@
+package vm2024;
+
+import java.util.ArrayList;
+
+// First-In-First-Out policy, which runs the processes to completion in the order they were admitted.
+class FirstInFirstOutPolicy implements SchedulingPolicy {
+
+    public int select(ArrayList<ProcessControlBlock> readyQueue) {
+        for (int i = 0; i < readyQueue.size(); i++) {
+            if (readyQueue.get(i).ready) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int quantum() {
+        return 0;
+    }
+}
@@ -0,0 +1,43 @@
+package vm2024;
+
+// First-In-First-Out policy, which evicts the page that was loaded the longest time ago, however often it has been accessed since.
+class FirstInFirstOutReplacement implements PageReplacementPolicy {
+
+    // The order in which the page of every frame was loaded, 0 for a free frame.
+    private long[] loadedAt;
+    private long loads;
+
+    public void initialize(int frames) {
+        loadedAt = new long[frames];
+        loads = 0;
+    }
+
+    public void loaded(int frame) {
+        loadedAt[frame] = ++loads;
+    }
+
+    public void referenced(int frame) {
+    }
+
+    public void released(int frame) {
+        loadedAt[frame] = 0;
+    }
+
+    public int victim() {
+        return oldest(loadedAt);
+    }
+
+    // Returns the frame in use with the smallest stamp.
+    static int oldest(long[] stamps) {
+        int victim = -1;
+        for (int frame = 0; frame < stamps.length; frame++) {
+            if (stamps[frame] != 0 && (victim < 0 || stamps[frame] < stamps[victim])) {
+                victim = frame;
+            }
+        }
+        if (victim < 0) {
+            throw new IllegalStateException("No frame in use to evict");
+        }
+        return victim;
+    }
+}
@@ -0,0 +1,32 @@
+package vm2024;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// A process finished by reaching HLT or the end of its instructions, and was terminated.
+@Name("vm2024.Halt")
+@Label("Halt")
+@Category("VM2024")
+@Description("A process finished and was terminated")
+class HaltEvent extends Event {
+    @Label("Job Id")
+    int jobId;
+
+    @Label("CPU")
+    int cpu;
+
+    @Label("Instructions")
+    long instructions;
+
+    @Label("CPU Time")
+    @Timespan
+    long cpuTime;
+
+    @Label("Turnaround Time")
+    @Timespan
+    long turnaroundTime;
+}
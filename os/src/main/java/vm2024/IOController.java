@@ -0,0 +1,67 @@
+package vm2024;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+// A a class for creating a IO Controller object that manages the virtual disc and handles IO operations.
+class IOController {
+
+    // Buffer of words, representing our virtual disc and IO device.
+    private IntBuffer virtualDisc;
+    // Number of used words in disc.
+    private int usedSpace;
+    
+    // Constructor that initializes this device with an empty disc.
+    IOController() { 
+        virtualDisc = IntBuffer.allocate(1024);
+        usedSpace = 0;
+    }
+
+    // Constructor that initializes this device with an existing disc, such as a mapped program image.
+    IOController(IntBuffer disc) {
+        virtualDisc = disc;
+        usedSpace = disc.limit();
+    }
+
+    // Read IO Operation that returns a specfic word from disc.
+    public int read(int i) {
+        return virtualDisc.get(i);
+    }
+
+    // Write IO Operation that writes to latest word in disc, growing the disc when it is full.
+    public void write(int word) {
+        if (usedSpace == virtualDisc.capacity()) {
+            IntBuffer disc = IntBuffer.allocate(virtualDisc.capacity() * 2);
+            virtualDisc.position(0).limit(usedSpace);
+            disc.put(virtualDisc);
+            virtualDisc = disc;
+        }
+        virtualDisc.put(usedSpace++, word);
+    }
+
+    // IO Operation that returns the number of used words in disc.
+    public int getUsedSpace() {
+        return usedSpace;
+    }
+
+    // Returns the number of bytes that the disc takes in a snapshot.
+    int snapshotSize() {
+        return 4 + usedSpace * 4;
+    }
+
+    // Writes the used words of the disc to a snapshot.
+    void save(ByteBuffer snapshot) {
+        snapshot.putInt(usedSpace);
+        for (int i = 0; i < usedSpace; i++) {
+            snapshot.putInt(virtualDisc.get(i));
+        }
+    }
+
+    // Constructor that initializes this device with the disc saved in a snapshot.
+    IOController(ByteBuffer snapshot) {
+        usedSpace = snapshot.getInt();
+        virtualDisc = IntBuffer.allocate(Math.max(usedSpace, 1024));
+        snapshot.asIntBuffer().get(virtualDisc.array(), 0, usedSpace);
+        snapshot.position(snapshot.position() + usedSpace * 4);
+    }
+}
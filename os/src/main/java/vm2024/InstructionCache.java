@@ -0,0 +1,232 @@
+package vm2024;
+
+// A class for the pre-decoded instruction cache of a process.
+// Each instruction of the program is decoded once into a packed long holding its type, opcode, and operands, so the CPU never has to re-parse the instruction strings.
+// Entries are invalidated when the program writes into its own code region, and are decoded again from memory on the next fetch.
+class InstructionCache {
+
+    // Bit layout of a decoded instruction: opcode, three operand slots, the 4-bit address of arithmetic instructions, and the type.
+    // The sign bit marks an entry as valid, so an invalidated (zero) entry can be detected with a single comparison.
+    static final int OPCODE_SHIFT = 0;
+    static final int FIRST_SHIFT = 6;
+    static final int SECOND_SHIFT = 30;
+    static final int THIRD_SHIFT = 34;
+    static final int FOURTH_SHIFT = 50;
+    static final int TYPE_SHIFT = 54;
+    static final long VALID = 1L << 63;
+
+    // The raw instruction words, kept for the instruction register.
+    private int[] words;
+    // The decoded form of each instruction.
+    private long[] decoded;
+    // The pre-bound handler of each instruction, when the process runs on the threaded-code engine.
+    private InstructionHandler[] handlers;
+    // When the process runs on the tiered engine: the number of cycles that started at each instruction, and the compiled block starting there with its length.
+    // A length of -1 marks an instruction where the block could not be compiled.
+    private int[] hotness;
+    private CompiledBlock[] blocks;
+    private int[] blockLengths;
+    // Whether several processes use this cache, in which case none of them may change it.
+    // Its entries and handlers are complete before it is shared, and a process copies it before invalidating an entry, so the lazy decoding and translation never write into it.
+    private boolean shared;
+
+    // Constructor that initializes an empty cache for the given number of instructions.
+    InstructionCache(int size) {
+        words = new int[size];
+        decoded = new long[size];
+    }
+
+    // Returns a private copy of the cache, with its own entries, handlers, and blocks.
+    public InstructionCache copy() {
+        InstructionCache copy = new InstructionCache(0);
+        copy.words = words.clone();
+        copy.decoded = decoded.clone();
+        copy.handlers = handlers == null ? null : handlers.clone();
+        copy.hotness = hotness == null ? null : hotness.clone();
+        copy.blocks = blocks == null ? null : blocks.clone();
+        copy.blockLengths = blockLengths == null ? null : blockLengths.clone();
+        return copy;
+    }
+
+    // Marks the cache as shared between processes.
+    public void share() {
+        shared = true;
+    }
+
+    // Returns whether the cache is shared between processes.
+    public boolean isShared() {
+        return shared;
+    }
+
+    // Decodes an instruction word and stores it in the cache, returning the decoded form.
+    public long load(int i, int word) {
+        checkPrivate();
+        words[i] = word;
+        decoded[i] = decode(word);
+        return decoded[i];
+    }
+
+    // Returns the decoded instruction at the index, or 0 if the entry has been invalidated.
+    public long get(int i) {
+        return decoded[i];
+    }
+
+    // Returns the raw instruction word at the index.
+    public int word(int i) {
+        return words[i];
+    }
+
+    // Invalidates an entry and its handler after the program has written over it.
+    // Also drops every compiled block that contains the entry, so the instructions around it go back to the interpreter.
+    public void invalidate(int i) {
+        decoded[i] = 0;
+        if (handlers != null) {
+            handlers[i] = null;
+        }
+        if (blocks != null) {
+            for (int start = Math.max(0, i - TieredCompiler.MAX_BLOCK_LENGTH + 1); start <= i; start++) {
+                if (start + Math.abs(blockLengths[start]) > i) {
+                    blocks[start] = null;
+                    blockLengths[start] = 0;
+                    if (hotness != null) {
+                        hotness[start] = 0;
+                    }
+                }
+            }
+        }
+    }
+
+    // Adds an empty compiled block to every entry, and the hotness counters that the tiered engine compiles blocks by when counting is set.
+    // Without the counters, the blocks are only the ones that the load-time optimizer sets.
+    public void enableBlocks(boolean counting) {
+        if (blocks == null) {
+            blocks = new CompiledBlock[decoded.length];
+            blockLengths = new int[decoded.length];
+        }
+        if (counting) {
+            hotness = new int[decoded.length];
+        }
+    }
+
+    // Returns whether the entries have compiled blocks.
+    public boolean hasBlocks() {
+        return blocks != null;
+    }
+
+    // Returns the compiled block starting at the index, or null if there is none.
+    public CompiledBlock block(int i) {
+        return blocks[i];
+    }
+
+    // Returns the number of instructions in the compiled block starting at the index.
+    public int blockLength(int i) {
+        return blockLengths[i];
+    }
+
+    // Sets the compiled block starting at the index, or marks the index as not compilable with a null block and length -1.
+    public void setBlock(int i, CompiledBlock block, int length) {
+        checkPrivate();
+        blocks[i] = block;
+        blockLengths[i] = length;
+    }
+
+    // Counts a cycle starting at the index, and returns whether the block starting there has just become hot.
+    // Always false when there are no hotness counters.
+    public boolean countCycle(int i) {
+        return hotness != null && blockLengths[i] == 0 && ++hotness[i] == TieredCompiler.HOT_THRESHOLD;
+    }
+
+    // Adds an empty handler to every entry, for the threaded-code engine.
+    public void enableHandlers() {
+        handlers = new InstructionHandler[decoded.length];
+    }
+
+    // Returns whether the entries have handlers.
+    public boolean hasHandlers() {
+        return handlers != null;
+    }
+
+    // Returns the handler at the index, or null if the entry has been invalidated.
+    public InstructionHandler handler(int i) {
+        return handlers[i];
+    }
+
+    // Sets the handler at the index.
+    public void setHandler(int i, InstructionHandler handler) {
+        checkPrivate();
+        handlers[i] = handler;
+    }
+
+    // Throws if the cache is shared, as a change would reach every process that runs from it.
+    private void checkPrivate() {
+        if (shared) {
+            throw new IllegalStateException("A shared instruction section cannot be changed");
+        }
+    }
+
+    // Returns the number of instructions in the cache.
+    public int size() {
+        return decoded.length;
+    }
+
+    // Decodes a 32-bit instruction word into its packed form.
+    // The operand slots follow the same order as the operation arrays created by the CPU's decode step.
+    static long decode(int word) {
+        int type = word >>> 30;
+        int opcode = (word >>> 24) & 0x3F;
+
+        // Arithmetic Instructions have 3 registers and a 4-bit address.
+        if (type == 0) {
+            return pack(type, opcode, (word >>> 20) & 0xF, (word >>> 16) & 0xF, (word >>> 12) & 0xF, (word >>> 8) & 0xF);
+        }
+
+        // Unconditional Jump Instructions only have a 24-bit address.
+        if (type == 2) {
+            return pack(type, opcode, word & 0xFFFFFF, 0, 0, 0);
+        }
+
+        // Conditional Branch / Immediate and IO Instructions have 2 registers and a 16-bit address.
+        return pack(type, opcode, (word >>> 20) & 0xF, (word >>> 16) & 0xF, word & 0xFFFF, 0);
+    }
+
+    // Packs the fields of an instruction into a valid cache entry.
+    static long pack(int type, int opcode, int first, int second, int third, int fourth) {
+        return VALID
+            | ((long) type << TYPE_SHIFT)
+            | ((long) opcode << OPCODE_SHIFT)
+            | ((long) first << FIRST_SHIFT)
+            | ((long) second << SECOND_SHIFT)
+            | ((long) third << THIRD_SHIFT)
+            | ((long) fourth << FOURTH_SHIFT);
+    }
+
+    // Returns whether a packed instruction is an IO instruction that transfers a word between a register and an address: RD or WR in the IO format.
+    static boolean isIO(long instruction) {
+        return type(instruction) == 3 && opcode(instruction) <= 1 && third(instruction) != 0;
+    }
+
+    // Accessors for the fields of a packed instruction.
+    static int type(long instruction) {
+        return (int) (instruction >>> TYPE_SHIFT) & 0x3;
+    }
+
+    static int opcode(long instruction) {
+        return (int) (instruction >>> OPCODE_SHIFT) & 0x3F;
+    }
+
+    static int first(long instruction) {
+        return (int) (instruction >>> FIRST_SHIFT) & 0xFFFFFF;
+    }
+
+    static int second(long instruction) {
+        return (int) (instruction >>> SECOND_SHIFT) & 0xF;
+    }
+
+    static int third(long instruction) {
+        return (int) (instruction >>> THIRD_SHIFT) & 0xFFFF;
+    }
+
+    static int fourth(long instruction) {
+        return (int) (instruction >>> FOURTH_SHIFT) & 0xF;
+    }
+}
@@ -0,0 +1,7 @@
+package vm2024;
+
+// Interface for a pre-bound instruction handler of the threaded-code engine.
+// A handler executes one instruction of a program, with its registers and effective address already resolved.
+interface InstructionHandler {
+    void execute(CentralProcessingUnit cpu);
+}
@@ -0,0 +1,30 @@
+package vm2024;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Java Flight Recorder event for a job that was copied from the virtual disc into memory and admitted by the long-term scheduler.
+// Like the other events that trace the life of every job in a recording, it costs next to nothing while no recording has it enabled, as it is only filled in and committed when isEnabled() returns true.
+@Name("vm2024.JobLoad")
+@Label("Job Load")
+@Category("VM2024")
+@Description("A job was copied from the virtual disc into memory and admitted as a ready process")
+class JobLoadEvent extends Event {
+    @Label("Job Id")
+    int jobId;
+
+    @Label("Words")
+    int words;
+
+    @Label("Instructions")
+    int instructionCount;
+
+    @Label("Superinstructions")
+    int superinstructions;
+
+    @Label("Folded Reads")
+    int foldedReads;
+}
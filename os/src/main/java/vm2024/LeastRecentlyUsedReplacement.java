@@ -0,0 +1,30 @@
+package vm2024;
+
+// Least-Recently-Used policy, which evicts the page that has gone the longest time without being accessed.
+class LeastRecentlyUsedReplacement implements PageReplacementPolicy {
+
+    // The order of the last access to every frame, 0 for a free frame.
+    private long[] lastUsed;
+    private long accesses;
+
+    public void initialize(int frames) {
+        lastUsed = new long[frames];
+        accesses = 0;
+    }
+
+    public void loaded(int frame) {
+        lastUsed[frame] = ++accesses;
+    }
+
+    public void referenced(int frame) {
+        lastUsed[frame] = ++accesses;
+    }
+
+    public void released(int frame) {
+        lastUsed[frame] = 0;
+    }
+
+    public int victim() {
+        return FirstInFirstOutReplacement.oldest(lastUsed);
+    }
+}
@@ -0,0 +1,295 @@
+package vm2024;
+
+import java.util.BitSet;
+
+// A class for the load-time optimizer, an optional pass over the instruction section of a process once the job has been loaded into memory.
+// The optimizer finds the words of the logical space that no instruction can write, and folds the reads of those words into constants.
+// It also fuses common pairs of instructions into superinstructions: MOVI or LDI followed by ADDI, and SLT followed by BNE or BEQ for loop control.
+// Folded instructions and superinstructions are saved as blocks of the instruction cache, so the CPU dispatches each of them once, and counts and invalidates them like compiled blocks.
+// Every instruction keeps its index, so a jump target stored in the data section still lands on the same instruction.
+// A jump to the second instruction of a superinstruction runs that instruction on its own, as every index gets its own block or none.
+class LoadTimeOptimizer {
+
+    // Opcodes of the instructions that the optimizer folds or fuses.
+    private static final int WR = 1;
+    private static final int ST = 2;
+    private static final int LW = 3;
+    private static final int MOVI = 11;
+    private static final int ADDI = 12;
+    private static final int MULI = 13;
+    private static final int DIVI = 14;
+    private static final int LDI = 15;
+    private static final int SLT = 16;
+    private static final int SLTI = 17;
+    private static final int JMP = 20;
+    private static final int BEQ = 21;
+    private static final int BNE = 22;
+    private static final int BEZ = 23;
+    private static final int BNZ = 24;
+    private static final int BGZ = 25;
+    private static final int BLZ = 26;
+
+    // The process being optimized, its memory, and the words of its logical space that some instruction may write.
+    private ProcessControlBlock pcb;
+    private MemoryManagementUnit memory;
+    private BitSet written;
+    // Whether reads can be folded at all, and the number of words in the logical space.
+    private boolean fold;
+    private int size;
+
+    private LoadTimeOptimizer(ProcessControlBlock pcb, MemoryManagementUnit memory) {
+        this.pcb = pcb;
+        this.memory = memory;
+        size = memory.getSize(pcb.pageNumber);
+        written = writtenWords(pcb.instructions, pcb.dataMemoryOffset);
+
+        // A store into the code region could turn an instruction into a store to any other word, so no word can be proven read-only.
+        int firstWritten = written.nextSetBit(0);
+        fold = firstWritten < 0 || firstWritten >= pcb.instructionCount;
+    }
+
+    // Optimizes the pre-decoded instruction section of a process whose words are in memory, and counts its superinstructions and folded reads in the PCB.
+    static void optimize(ProcessControlBlock pcb, MemoryManagementUnit memory) {
+        LoadTimeOptimizer optimizer = new LoadTimeOptimizer(pcb, memory);
+        InstructionCache instructions = pcb.instructions;
+        instructions.enableBlocks(false);
+
+        int superinstructions = 0;
+        int foldedReads = 0;
+        for (int i = 0; i < instructions.size(); i++) {
+            CompiledBlock block = i + 1 < instructions.size() ? optimizer.fuse(i) : null;
+            if (block != null) {
+                instructions.setBlock(i, block, 2);
+                superinstructions++;
+                continue;
+            }
+            block = optimizer.fold(i);
+            if (block != null) {
+                instructions.setBlock(i, block, 1);
+                foldedReads++;
+            }
+        }
+        pcb.superinstructions = superinstructions;
+        pcb.foldedReads = foldedReads;
+    }
+
+    // Returns the words that the stores of a program can write: the addresses of every ST and WR, including WR transfers of the DMA channel.
+    // Every address is an operand of the instruction itself, so the set is known before the program runs.
+    static BitSet writtenWords(InstructionCache instructions, int dataMemoryOffset) {
+        BitSet written = new BitSet();
+        for (int i = 0; i < instructions.size(); i++) {
+            long instruction = instructions.get(i);
+            int opcode = InstructionCache.opcode(instruction);
+            int address = InstructionCache.third(instruction);
+            if ((opcode == WR || opcode == ST) && address != 0) {
+                written.set(dataMemoryOffset + (address >>> 2));
+            }
+        }
+        return written;
+    }
+
+    // Returns whether the word at an operand address can never change while the process runs.
+    private boolean readOnly(int address) {
+        int word = pcb.dataMemoryOffset + (address >>> 2);
+        return fold && word < size && !written.get(word);
+    }
+
+    // Returns the word at an operand address, which the process has not had a chance to change yet.
+    private int constant(int address) {
+        return memory.read(pcb.pageNumber, pcb.dataMemoryOffset + (address >>> 2));
+    }
+
+    // Returns the superinstruction for the pair of instructions starting at the index, or null if the pair is not one of the fused patterns.
+    // The superinstruction moves the PC past the first instruction, as the driver would between the two.
+    private CompiledBlock fuse(int i) {
+        InstructionCache instructions = pcb.instructions;
+        long first = instructions.get(i);
+        long second = instructions.get(i + 1);
+        if (first == 0 || second == 0) {
+            return null;
+        }
+        int firstOpcode = InstructionCache.opcode(first);
+        int secondOpcode = InstructionCache.opcode(second);
+        int firstWord = instructions.word(i);
+        int secondWord = instructions.word(i + 1);
+
+        // MOVI/LDI then ADDI - Loads a register from an address, then adds the word at another address to a register.
+        if ((firstOpcode == MOVI || firstOpcode == LDI) && secondOpcode == ADDI) {
+            int loaded = InstructionCache.first(first);
+            int loadAddress = InstructionCache.second(first);
+            int added = InstructionCache.first(second);
+            int addAddress = InstructionCache.second(second);
+            boolean loadFolded = readOnly(loadAddress);
+            boolean addFolded = readOnly(addAddress);
+            int loadValue = loadFolded ? constant(loadAddress) : 0;
+            int addValue = addFolded ? constant(addAddress) : 0;
+            return cpu -> {
+                int[] registers = cpu.registers;
+                registers[2] = firstWord;
+                registers[loaded] = loadFolded ? loadValue : cpu.load(loadAddress);
+                cpu.process.programCounter++;
+                registers[2] = secondWord;
+                registers[added] += addFolded ? addValue : cpu.load(addAddress);
+            };
+        }
+
+        // SLT then BNE/BEQ - Compares two registers, then branches on two registers to an address, as a loop's condition does.
+        if (firstOpcode == SLT && (secondOpcode == BNE || secondOpcode == BEQ)) {
+            int result = InstructionCache.first(first);
+            int left = InstructionCache.second(first);
+            int right = InstructionCache.third(first);
+            int x = InstructionCache.first(second);
+            int y = InstructionCache.second(second);
+            int targetAddress = InstructionCache.third(second);
+            boolean unequal = secondOpcode == BNE;
+            boolean targetFolded = readOnly(targetAddress);
+            int target = targetFolded ? constant(targetAddress) : 0;
+            return cpu -> {
+                int[] registers = cpu.registers;
+                ProcessControlBlock process = cpu.process;
+                registers[2] = firstWord;
+                registers[result] = (registers[left] < registers[right]) ? 1 : 0;
+                process.programCounter++;
+                registers[2] = secondWord;
+                if ((registers[x] != registers[y]) == unequal) {
+                    process.programCounter = targetFolded ? target : cpu.load(targetAddress);
+                }
+            };
+        }
+        return null;
+    }
+
+    // Returns the instruction at the index with its read folded into a constant, or null if it does not read a read-only word.
+    // Each case is the same operation as in CentralProcessingUnit.execute(), with the constant in place of the read.
+    private CompiledBlock fold(int i) {
+        InstructionCache instructions = pcb.instructions;
+        long instruction = instructions.get(i);
+        if (instruction == 0) {
+            return null;
+        }
+        int word = instructions.word(i);
+        int op1 = InstructionCache.first(instruction);
+        int op2 = InstructionCache.second(instruction);
+        int op3 = InstructionCache.third(instruction);
+
+        switch(InstructionCache.opcode(instruction)) {
+
+            // LW - Loads a register from an address.
+            case LW:
+            if (op3 == 0 || !readOnly(op3)) {
+                return null;
+            }
+            int loaded = constant(op3);
+            return cpu -> {
+                cpu.registers[2] = word;
+                cpu.registers[op1] = loaded;
+            };
+
+            // MOVI, LDI - Copies the data from an address into a register.
+            case MOVI:
+            case LDI:
+            if (!readOnly(op2)) {
+                return null;
+            }
+            int value = constant(op2);
+            return cpu -> {
+                cpu.registers[2] = word;
+                cpu.registers[op1] = value;
+            };
+
+            // ADDI - Adds the data from an address to a register.
+            case ADDI:
+            if (!readOnly(op2)) {
+                return null;
+            }
+            int addend = constant(op2);
+            return cpu -> {
+                cpu.registers[2] = word;
+                cpu.registers[op1] += addend;
+            };
+
+            // MULI - Multiplies a register by the data from an address.
+            case MULI:
+            if (!readOnly(op2)) {
+                return null;
+            }
+            int factor = constant(op2);
+            return cpu -> {
+                cpu.registers[2] = word;
+                cpu.registers[op1] = cpu.registers[op1] * factor;
+            };
+
+            // DIVI - Divides a register by the data from an address, left to the interpreter when the divisor is 0 so the fault is raised there.
+            case DIVI:
+            if (!readOnly(op2) || constant(op2) == 0) {
+                return null;
+            }
+            int divisor = constant(op2);
+            return cpu -> {
+                cpu.registers[2] = word;
+                cpu.registers[op1] = cpu.registers[op1] / divisor;
+            };
+
+            // SLTI - Sets a register to 1 or 0 on a register < the data from an address.
+            case SLTI:
+            if (!readOnly(op3)) {
+                return null;
+            }
+            int bound = constant(op3);
+            return cpu -> {
+                cpu.registers[2] = word;
+                cpu.registers[op1] = (cpu.registers[op2] < bound) ? 1 : 0;
+            };
+
+            // JMP - Jumps to the target stored at an address.
+            case JMP:
+            if (!readOnly(op1)) {
+                return null;
+            }
+            int jumpTarget = constant(op1);
+            return cpu -> {
+                cpu.registers[2] = word;
+                cpu.process.programCounter = jumpTarget;
+            };
+
+            // BEQ, BNE - Jumps to the target stored at an address if two registers are equal, or unequal.
+            case BEQ:
+            case BNE:
+            if (!readOnly(op3)) {
+                return null;
+            }
+            int branchTarget = constant(op3);
+            boolean unequal = InstructionCache.opcode(instruction) == BNE;
+            return cpu -> {
+                int[] registers = cpu.registers;
+                registers[2] = word;
+                if ((registers[op1] != registers[op2]) == unequal) {
+                    cpu.process.programCounter = branchTarget;
+                }
+            };
+
+            // BEZ, BNZ, BGZ, BLZ - Jumps to the target stored at an address if a register is 0, not 0, positive, or negative.
+            case BEZ:
+            case BNZ:
+            case BGZ:
+            case BLZ:
+            if (!readOnly(op2)) {
+                return null;
+            }
+            int target = constant(op2);
+            int opcode = InstructionCache.opcode(instruction);
+            return cpu -> {
+                int[] registers = cpu.registers;
+                registers[2] = word;
+                int register = registers[op1];
+                boolean taken = opcode == BEZ ? register == 0 : opcode == BNZ ? register != 0 : opcode == BGZ ? register > 0 : register < 0;
+                if (taken) {
+                    cpu.process.programCounter = target;
+                }
+            };
+
+            default:
+            return null;
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package vm2024;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// A class for creating a Memory Management Unit object that manages virtual memory and handles memory operations.
+// Physical memory is a fixed number of frames of 32-bit words, and each process addresses its own logical space through a page table.
+// The MMU is shared by all CPU cores: allocation and release of frames are synchronized, while reads and writes need no lock because every frame is owned by a single process, and a process only runs on one core at a time.
+// With demand paging, a page is only loaded into a frame when the process first touches it, and frames move between processes, so every access to memory takes the lock.
+// With code sharing, the code pages of jobs that hold the same words are mapped to the same frame, which is copied for a process when it writes into it.
+// A free frame is reserved for every mapping of a shared frame beyond the first, so the copy never runs out of memory in the middle of a store.
+class MemoryManagementUnit {
+
+    // Number of words in a page frame, kept as a power of two so translation is a shift and a mask.
+    static final int FRAME_SIZE = 16;
+    static final int FRAME_SHIFT = 4;
+    // Default number of frames in physical memory.
+    static final int DEFAULT_FRAMES = 4096;
+
+    // Array of words to represent physical memory, split into frames.
+    private int[] physicalMemory;
+
+    // Stack of the frames that are not mapped to any process.
+    private int[] freeFrames;
+    private int freeCount;
+
+    // The page tables of the processes, indexed by the PCB's page number.
+    // Each page table maps a logical page of the process to a frame in physical memory.
+    // The array is replaced when it grows, and is volatile so cores always translate through a complete copy.
+    private volatile int[][] pageTables;
+
+    // Page table entry of a page that is not in memory, when memory is demand-paged.
+    static final int NOT_PRESENT = -1;
+    // The pager that handles page faults, null when every page of a process is loaded when it is allocated.
+    private DemandPager pager;
+
+    // With code sharing: the number of page tables that map each shareable frame, 0 for a private frame, and the shareable frames by their words.
+    // Both are null when code pages are not shared.
+    private int[] shares;
+    private HashMap<ContentKey, Integer> sharedFrames;
+    // Number of free frames reserved for the copies of shared frames, one for every page table that maps a shared frame beyond the first.
+    private int reservedFrames;
+    // Number of code pages loaded into a frame of their own, number of code pages that were mapped to a frame that held the same words, and number of shared frames copied on a write.
+    private long distinctCodePages;
+    private long sharedPages;
+    private long copiedPages;
+
+    // Constructor that initializes this device with the default number of frames.
+    MemoryManagementUnit() {
+        this(DEFAULT_FRAMES);
+    }
+
+    // Constructor that initializes this device with the given number of frames.
+    MemoryManagementUnit(int frames) {
+        physicalMemory = new int[frames * FRAME_SIZE];
+        freeFrames = new int[frames];
+        for (int i = 0; i < frames; i++) {
+            freeFrames[i] = frames - 1 - i;
+        }
+        freeCount = frames;
+        pageTables = new int[16][];
+    }
+
+    // Makes memory demand-paged, with the given pager handling its page faults.
+    // Must be called before any page table is allocated.
+    synchronized void enableDemandPaging(DemandPager pager) {
+        this.pager = pager;
+    }
+
+    // Returns the pager of demand-paged memory, or null if memory is not demand-paged.
+    synchronized DemandPager getPager() {
+        return pager;
+    }
+
+    // Makes the code pages of jobs shareable, counting the page tables that already map every frame.
+    // A frame that several page tables map, as after restoring a snapshot, becomes shareable again.
+    synchronized void enableCodeSharing() {
+        shares = new int[freeFrames.length];
+        sharedFrames = new HashMap<ContentKey, Integer>();
+        for (int[] pageTable : pageTables) {
+            if (pageTable == null) {
+                continue;
+            }
+            for (int frame : pageTable) {
+                shares[frame]++;
+            }
+        }
+        reservedFrames = 0;
+        for (int frame = 0; frame < shares.length; frame++) {
+            if (shares[frame] > 1) {
+                sharedFrames.put(contents(frame), frame);
+                reservedFrames += shares[frame] - 1;
+            } else {
+                shares[frame] = 0;
+            }
+        }
+    }
+
+    // Returns whether code pages are shared.
+    synchronized boolean sharesCode() {
+        return shares != null;
+    }
+
+    // Allocation Operation that maps the pages of a job to a new page table and copies the job's words into them from the disc.
+    // Every page that starts within the first codeWords words is mapped to a frame that already holds the same words if there is one, and becomes shareable otherwise.
+    // A page mapped to a shared frame still needs a free frame, which is reserved for the copy if the process writes into it.
+    // Returns the page table's number, or -1 if there are not enough free frames for the pages and reservations while other processes are in memory.
+    public synchronized int allocateShared(IOController disc, int discAddress, int words, int codeWords) {
+        int pages = framesFor(words);
+        int codePages = framesFor(codeWords);
+        ContentKey[] keys = new ContentKey[codePages];
+        int[] pageTable = new int[pages];
+        Arrays.fill(pageTable, NOT_PRESENT);
+        for (int page = 0; page < codePages; page++) {
+            int[] contents = new int[FRAME_SIZE];
+            for (int i = 0; i < FRAME_SIZE && (page << FRAME_SHIFT) + i < words; i++) {
+                contents[i] = disc.read(discAddress + (page << FRAME_SHIFT) + i);
+            }
+            keys[page] = new ContentKey(contents);
+            Integer frame = sharedFrames.get(keys[page]);
+            pageTable[page] = frame == null ? NOT_PRESENT : frame;
+        }
+        if (pages > freeCount - reservedFrames) {
+            if (freeCount < freeFrames.length) {
+                return -1;
+            }
+            throw new IllegalStateException("Out of memory: " + pages + " frames requested, " + freeCount + " free");
+        }
+
+        for (int page = 0; page < pages; page++) {
+            if (pageTable[page] != NOT_PRESENT) {
+                shares[pageTable[page]]++;
+                reservedFrames++;
+                sharedPages++;
+                continue;
+            }
+            int frame = freeFrames[--freeCount];
+            pageTable[page] = frame;
+            int start = frame << FRAME_SHIFT;
+            Arrays.fill(physicalMemory, start, start + FRAME_SIZE, 0);
+            if (page < codePages) {
+                System.arraycopy(keys[page].words, 0, physicalMemory, start, FRAME_SIZE);
+                shares[frame] = 1;
+                sharedFrames.put(keys[page], frame);
+                distinctCodePages++;
+            } else {
+                for (int i = 0; i < FRAME_SIZE && (page << FRAME_SHIFT) + i < words; i++) {
+                    physicalMemory[start + i] = disc.read(discAddress + (page << FRAME_SHIFT) + i);
+                }
+            }
+        }
+        return addPageTable(pageTable);
+    }
+
+    // Returns the words of a frame as a key of the shareable frames.
+    private ContentKey contents(int frame) {
+        int start = frame << FRAME_SHIFT;
+        return new ContentKey(Arrays.copyOfRange(physicalMemory, start, start + FRAME_SIZE));
+    }
+
+    // Returns the number of code pages that were mapped to a frame that held the same words.
+    synchronized long getSharedPages() {
+        return sharedPages;
+    }
+
+    // Returns the number of shared frames that were copied because a process wrote into them.
+    synchronized long getCopiedPages() {
+        return copiedPages;
+    }
+
+    // Returns the number of code pages that were loaded into a frame of their own.
+    synchronized long getDistinctCodePages() {
+        return distinctCodePages;
+    }
+
+    // Allocation Operation that maps enough frames for the given number of words to a new page table.
+    // Returns the page table's number, which the long-term scheduler saves in the PCB.
+    // With demand paging, no frame is mapped until the process touches its pages.
+    public synchronized int allocate(int words) {
+        int pages = framesFor(words);
+        if (pager == null && pages > freeCount - reservedFrames) {
+            throw new IllegalStateException("Out of memory: " + pages + " frames requested, " + freeCount + " free");
+        }
+
+        int[] pageTable = new int[pages];
+        for (int i = 0; i < pages; i++) {
+            if (pager != null) {
+                pageTable[i] = NOT_PRESENT;
+                continue;
+            }
+            pageTable[i] = freeFrames[--freeCount];
+            Arrays.fill(physicalMemory, pageTable[i] << FRAME_SHIFT, (pageTable[i] + 1) << FRAME_SHIFT, 0);
+        }
+        return addPageTable(pageTable);
+    }
+
+    // Adds a page table, and returns its number.
+    private int addPageTable(int[] pageTable) {
+        // Reuses the number of a released page table, growing the array of page tables when there is none.
+        int[][] tables = pageTables;
+        int pageNumber = 0;
+        while (pageNumber < tables.length && tables[pageNumber] != null) {
+            pageNumber++;
+        }
+        if (pageNumber == tables.length) {
+            tables = Arrays.copyOf(tables, tables.length * 2);
+        }
+        tables[pageNumber] = pageTable;
+        pageTables = tables;
+        return pageNumber;
+    }
+
+    // Registers the process that owns a page table with the pager, so its pages can be loaded from the virtual disc on a page fault.
+    public synchronized void map(ProcessControlBlock pcb) {
+        pager.admit(pcb, pageTables[pcb.pageNumber].length);
+    }
+
+    // Deallocation Operation that returns the frames of a page table to the free stack.
+    public synchronized void release(int pageNumber) {
+        int[][] tables = pageTables;
+        int[] pageTable = tables[pageNumber];
+        for (int i = 0; i < pageTable.length; i++) {
+            if (pageTable[i] == NOT_PRESENT) {
+                continue;
+            }
+            // A shared frame is only freed with the last page table that maps it, and the frame reserved for this mapping's copy is given back before that.
+            if (shares != null && shares[pageTable[i]] > 0) {
+                if (--shares[pageTable[i]] > 0) {
+                    reservedFrames--;
+                    continue;
+                }
+                sharedFrames.remove(contents(pageTable[i]));
+            }
+            freeFrames[freeCount++] = pageTable[i];
+            if (pager != null) {
+                pager.released(pageTable[i]);
+            }
+        }
+        if (pager != null) {
+            pager.release(pageNumber);
+        }
+        tables[pageNumber] = null;
+        pageTables = tables;
+    }
+
+    // Translates a logical word address of a process into a physical word address.
+    public int translate(int pageNumber, int address) {
+        if (pager != null) {
+            return translatePaged(pageNumber, address, false);
+        }
+        int[] pageTable = pageTables[pageNumber];
+        int page = address >>> FRAME_SHIFT;
+        if (page >= pageTable.length) {
+            throw new IndexOutOfBoundsException("Address " + address + " is outside of page table " + pageNumber);
+        }
+        return (pageTable[page] << FRAME_SHIFT) | (address & (FRAME_SIZE - 1));
+    }
+
+    // Read Operation that returns a specific word from the logical space of a process.
+    public int read(int pageNumber, int address) {
+        if (pager != null) {
+            return readPaged(pageNumber, address);
+        }
+        return physicalMemory[translate(pageNumber, address)];
+    }
+
+    // Read Operation that returns a specific word from the logical space of a process together with its physical address, translating the address once.
+    // Used by a CPU with a data cache, which is indexed by physical address. The physical address is in the high half of the result, and the word in the low half.
+    public long readWithAddress(int pageNumber, int address) {
+        if (pager != null) {
+            return readPagedWithAddress(pageNumber, address);
+        }
+        int physicalAddress = translate(pageNumber, address);
+        return withAddress(physicalAddress, physicalMemory[physicalAddress]);
+    }
+
+    // Packs a physical address and the word read from it into the result of readWithAddress.
+    static long withAddress(int physicalAddress, int word) {
+        return ((long) physicalAddress << 32) | (word & 0xFFFFFFFFL);
+    }
+
+    // Returns the physical address of a result of readWithAddress.
+    static int addressOf(long read) {
+        return (int) (read >>> 32);
+    }
+
+    // Returns the word of a result of readWithAddress.
+    static int wordOf(long read) {
+        return (int) read;
+    }
+
+    // Write Operation that writes over a specific word in the logical space of a process.
+    // Returns the physical address written, which is in the process's own copy when it wrote into a shared frame.
+    // A write into a shareable frame goes through the lock, as the frame must be copied or stop being shareable first.
+    public int write(int pageNumber, int address, int value) {
+        if (pager != null) {
+            return writePaged(pageNumber, address, value);
+        }
+        int physicalAddress = translate(pageNumber, address);
+        if (shares != null && shares[physicalAddress >>> FRAME_SHIFT] != 0) {
+            return writeShared(pageNumber, address, value);
+        }
+        physicalMemory[physicalAddress] = value;
+        return physicalAddress;
+    }
+
+    // Writes a word into a shareable frame, and returns its physical address.
+    // The process gets its own copy of a frame that other page tables also map, into the frame reserved for it, and a frame that only this page table maps stops being shareable, so no other job is mapped to it once its words change.
+    private synchronized int writeShared(int pageNumber, int address, int value) {
+        int[] pageTable = pageTables[pageNumber];
+        int page = address >>> FRAME_SHIFT;
+        int frame = pageTable[page];
+        if (shares[frame] > 1) {
+            int copy = freeFrames[--freeCount];
+            reservedFrames--;
+            System.arraycopy(physicalMemory, frame << FRAME_SHIFT, physicalMemory, copy << FRAME_SHIFT, FRAME_SIZE);
+            shares[frame]--;
+            pageTable[page] = copy;
+            frame = copy;
+            copiedPages++;
+        } else if (shares[frame] == 1) {
+            sharedFrames.remove(contents(frame));
+            shares[frame] = 0;
+        }
+        int physicalAddress = (frame << FRAME_SHIFT) | (address & (FRAME_SIZE - 1));
+        physicalMemory[physicalAddress] = value;
+        return physicalAddress;
+    }
+
+    // Translates an address of demand-paged memory, raising a page fault when its page is not in memory, and records the access for the pager.
+    private synchronized int translatePaged(int pageNumber, int address, boolean write) {
+        int[] pageTable = pageTables[pageNumber];
+        int page = address >>> FRAME_SHIFT;
+        if (page >= pageTable.length) {
+            throw new IndexOutOfBoundsException("Address " + address + " is outside of page table " + pageNumber);
+        }
+        int frame = pageTable[page];
+        if (frame == NOT_PRESENT) {
+            frame = pageFault(pageNumber, page);
+        }
+        pager.referenced(frame, write);
+        return (frame << FRAME_SHIFT) | (address & (FRAME_SIZE - 1));
+    }
+
+    // Reads a word of demand-paged memory.
+    private synchronized int readPaged(int pageNumber, int address) {
+        return physicalMemory[translatePaged(pageNumber, address, false)];
+    }
+
+    // Reads a word of demand-paged memory with its physical address, under the lock so the frame cannot be evicted in between.
+    private synchronized long readPagedWithAddress(int pageNumber, int address) {
+        int physicalAddress = translatePaged(pageNumber, address, false);
+        return withAddress(physicalAddress, physicalMemory[physicalAddress]);
+    }
+
+    // Writes a word of demand-paged memory, which makes its frame dirty, and returns its physical address.
+    private synchronized int writePaged(int pageNumber, int address, int value) {
+        int physicalAddress = translatePaged(pageNumber, address, true);
+        physicalMemory[physicalAddress] = value;
+        return physicalAddress;
+    }
+
+    // Handles a page fault by loading the page into a free frame, or into the frame of a page that the pager evicts when there is none.
+    // Returns the frame.
+    private int pageFault(int pageNumber, int page) {
+        int frame = freeCount > 0 ? freeFrames[--freeCount] : pager.evict(physicalMemory, pageTables);
+        pager.load(pageNumber, page, frame, physicalMemory);
+        pageTables[pageNumber][page] = frame;
+        return frame;
+    }
+
+    // Memory Operation that returns the number of words in the logical space of a process.
+    public int getSize(int pageNumber) {
+        return pageTables[pageNumber].length << FRAME_SHIFT;
+    }
+
+    // Memory Operation that returns the number of frames that are not mapped to any process.
+    public synchronized int getFreeFrames() {
+        return freeCount;
+    }
+
+    // Returns the number of frames needed to hold the given number of words.
+    static int framesFor(int words) {
+        return (words + FRAME_SIZE - 1) >>> FRAME_SHIFT;
+    }
+
+    // Memory Operation that returns the number of used words in memory.
+    public synchronized int getUsedSpace() {
+        return physicalMemory.length - (freeCount << FRAME_SHIFT);
+    }
+
+    // Returns the number of bytes that memory takes in a snapshot.
+    synchronized int snapshotSize() {
+        int size = 16 + physicalMemory.length * 4 + freeCount * 4;
+        for (int[] pageTable : pageTables) {
+            size += 4 + (pageTable == null ? 0 : pageTable.length * 4);
+        }
+        return size;
+    }
+
+    // Writes physical memory, the free frames, and the page tables to a snapshot.
+    // A missing page table is written as a length of -1.
+    synchronized void save(ByteBuffer snapshot) {
+        snapshot.putInt(physicalMemory.length >>> FRAME_SHIFT);
+        snapshot.asIntBuffer().put(physicalMemory);
+        snapshot.position(snapshot.position() + physicalMemory.length * 4);
+
+        snapshot.putInt(freeCount);
+        snapshot.asIntBuffer().put(freeFrames, 0, freeCount);
+        snapshot.position(snapshot.position() + freeCount * 4);
+
+        int[][] tables = pageTables;
+        snapshot.putInt(tables.length);
+        for (int[] pageTable : tables) {
+            if (pageTable == null) {
+                snapshot.putInt(-1);
+                continue;
+            }
+            snapshot.putInt(pageTable.length);
+            for (int frame : pageTable) {
+                snapshot.putInt(frame);
+            }
+        }
+    }
+
+    // Constructor that initializes this device with the memory saved in a snapshot.
+    MemoryManagementUnit(ByteBuffer snapshot) {
+        int frames = snapshot.getInt();
+        physicalMemory = new int[frames * FRAME_SIZE];
+        snapshot.asIntBuffer().get(physicalMemory);
+        snapshot.position(snapshot.position() + physicalMemory.length * 4);
+
+        freeFrames = new int[frames];
+        freeCount = snapshot.getInt();
+        snapshot.asIntBuffer().get(freeFrames, 0, freeCount);
+        snapshot.position(snapshot.position() + freeCount * 4);
+
+        int[][] tables = new int[snapshot.getInt()][];
+        for (int i = 0; i < tables.length; i++) {
+            int length = snapshot.getInt();
+            if (length < 0) {
+                continue;
+            }
+            tables[i] = new int[length];
+            for (int page = 0; page < length; page++) {
+                tables[i][page] = snapshot.getInt();
+            }
+        }
+        pageTables = tables;
+    }
+}
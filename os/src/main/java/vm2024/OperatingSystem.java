@@ -0,0 +1,1246 @@
+package vm2024;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+
+// The OS class that includes the kernel/driver, loader, schedulers, device objects, etc.
+class OperatingSystem {
+
+    // Object for instantiating classes for the Memory Manager, IO Controller, Process PCB, and CPU
+    // These objects represent the corresponding components as the chips/devices/structures that the kernel controls through the OSML layer.
+    // They include the necessary variables and methods, as you will see later in the code.
+    MemoryManagementUnit MMU;
+    IOController IOC;
+    ProcessControlBlock PCB;
+    CentralProcessingUnit CPU;
+    
+    // These are two queues managed by the long-term and short-term schedulers.
+    // They are used to schedulea queue of jobs and then shift them into the CPU when ready.
+    // These queues were implemented as growable lists of PCBs to better represent them as lists of processes, and to hold whole batches of jobs.
+    // The PCB objects in these lists represent the jobs (processes) and give the schedulers access to the process states.
+    ArrayList<ProcessControlBlock> jobQueue;
+    ArrayList<ProcessControlBlock> readyQueue;
+
+    // Index of the next job in the job queue that the long-term scheduler has not admitted to memory yet.
+    int nextJob;
+
+    // The policy that the short-term scheduler uses to pick the next process, and whether the driver prints the scheduling report after the batch.
+    SchedulingPolicy schedulingPolicy = new FirstInFirstOutPolicy();
+    boolean schedulingReport;
+
+    // The engine that the CPU executes programs with, the switch interpreter by default.
+    ExecutionEngine engine = ExecutionEngine.SWITCH;
+    // Whether the load-time optimizer runs over every admitted program, for the switch and threaded-code engines.
+    boolean optimize;
+
+    // Optional instruction and data cache simulators between the CPU and the MMU, null when disabled.
+    // In multi-core mode every core gets its own empty copy of them.
+    CacheSimulator instructionCache;
+    CacheSimulator dataCache;
+
+    // Whether IO instructions are carried out asynchronously by the DMA channel, and the simulated latency of each transfer in nanoseconds.
+    // The channel is created with the other devices on boot, and is null when direct memory access is disabled.
+    boolean directMemoryAccess;
+    long ioLatency;
+    DirectMemoryAccessController DMA;
+    // Time that the CPU spent idle, waiting for an IO-completion interrupt because every process was waiting for IO.
+    long ioIdleTime;
+
+    // Whether a terminated process keeps a copy of its final registers and logical memory in its PCB, for dumping after the batch.
+    boolean captureFinalState;
+
+    // Number of frames of physical memory.
+    int memoryFrames = MemoryManagementUnit.DEFAULT_FRAMES;
+    // The replacement policy of demand-paged memory, null to copy every job into memory when it is admitted.
+    // With demand paging, the long-term scheduler admits jobs without copying them, and a page is loaded from the virtual disc when the process first touches it, through a page fault, so jobs can be larger than physical memory.
+    // Dirty pages are written back to the swap file when they are evicted, a temporary file when swapPath is null.
+    PageReplacementPolicy pageReplacement;
+    Path swapPath;
+
+    // Whether jobs share their identical code pages and pre-decoded instructions, so memory and load time grow with the number of distinct programs rather than the number of jobs.
+    // A shared page is copied for a process when it writes into it, and a shared instruction section when it writes into its code region.
+    // Code pages are not shared with demand paging, as the pager loads every page of a process on its own.
+    boolean shareCode;
+    // The pre-decoded instruction sections that jobs share, by their instruction words, null when code is not shared.
+    HashMap<ContentKey, InstructionCache> sharedPrograms;
+
+    // Whether the CPUs keep execution counters, and the metrics that sum them and expose them over JMX while the driver runs.
+    boolean collectMetrics;
+    OperatingSystemMetrics metrics;
+
+    // Depth of the execution trace of every CPU in instructions, 0 when tracing is disabled.
+    // Traces are written to the trace directory when a process halts if traceOnHalt is set, when an instruction throws, and when dumpTraces() is called.
+    int traceDepth;
+    Path traceDirectory = Paths.get(".");
+    boolean traceOnHalt = true;
+
+    // Path of the snapshot that checkpoints write, null when checkpoints are disabled.
+    // A checkpoint is taken every checkpointInterval milliseconds when it is above 0, whenever a file is created at checkpointTrigger when it is set, and on the requestCheckpoint operation of the metrics MXBean.
+    // The trigger file is polled every TRIGGER_POLL_INTERVAL milliseconds, and deleted once it has been seen, so "touch" requests the next checkpoint.
+    // Checkpoints are only taken by the single-core driver, between two instructions, and not with demand paging.
+    Path checkpointPath;
+    long checkpointInterval;
+    Path checkpointTrigger;
+    static final long TRIGGER_POLL_INTERVAL = 100;
+    // Set by the timer, the trigger file, or the MXBean when a checkpoint is due, and cleared once it has been written.
+    volatile boolean checkpointRequested;
+
+    // Number of CPU cores. With more than one core, the driver runs in multi-core mode, where every core runs on its own thread and takes processes from a shared concurrent ready queue.
+    int coreCount = 1;
+    // The CPU cores and the shared ready queue used in multi-core mode.
+    CentralProcessingUnit[] cores;
+    ConcurrentLinkedQueue<ProcessControlBlock> sharedReadyQueue;
+    // Number of jobs of the batch that have finished, and the first failure of a core in multi-core mode.
+    int finishedJobs;
+    Throwable coreFailure;
+
+    // Whether the driver runs in virtual-thread mode, where every admitted process runs its own CPU on a virtual thread, and coreCount is the number of physical cores that the threads share.
+    // Suits large populations of concurrent jobs, as a process waiting for IO or for a core only holds its parked thread and its CPU's registers.
+    boolean virtualThreads;
+    // The physical cores in virtual-thread mode, which a process thread holds while it runs on its CPU, and the CPUs of the processes when they keep execution counters.
+    Semaphore physicalCores;
+    ConcurrentLinkedQueue<CentralProcessingUnit> processCPUs;
+
+    // The OS Driver (Kernel) method.
+    // This method takes in the path of the program file that needs to be executed and employs the loader, schedulers, and CPU to execute said program.
+    // The code for this method was kept as simple as possible to represent the entire logic and flow of program execution as concisely as possible.
+    // Thus, this method mostly instantiates objects and calls methods using those objects.
+    // It is a high-level encapsulation of the entire VM2024 architecture.
+    void driver(String programPath) throws IOException {
+        // Instantiates the devices and queues of the OS.
+        boot();
+
+        // The driver inputs the program path into the loader, binary program images are mounted by the image loader instead.
+        if (ProgramImage.isImage(programPath)) {
+            imageLoader(programPath);
+        } else {
+            loader(programPath);
+        }
+        
+        // Exposes the counters of the CPUs over JMX while the batch runs.
+        startMetrics();
+
+        if (checkpointPath != null && pageReplacement != null) {
+            shutdown();
+            throw new IllegalStateException("Checkpoints are not taken with demand paging");
+        }
+
+        // Multi-core and virtual-thread modes run the batch on their own drivers.
+        if (coreCount > 1 || virtualThreads) {
+            if (checkpointPath != null) {
+                shutdown();
+                throw new IllegalStateException("Checkpoints are only taken in single-core mode");
+            }
+            try {
+                if (virtualThreads) {
+                    virtualThreadDriver();
+                } else {
+                    multiCoreDriver();
+                }
+            } finally {
+                shutdown();
+            }
+            return;
+        }
+
+        // Before scheduling the jobs, the driver uses the newly created memory device to connect to and start the CPU.
+        CPU = createCPU(0);
+
+        finishedJobs = 0;
+        runBatch();
+    }
+
+    // Resumes a batch from a snapshot taken by a checkpoint, instead of loading and running it from the start.
+    // The devices, processes, queues, and CPU state come from the snapshot, while the scheduling policy, engine, and the other settings are the ones of this OS.
+    void resume(Path snapshot) throws IOException {
+        if (pageReplacement != null) {
+            throw new IllegalStateException("Checkpoints are not taken with demand paging");
+        }
+        boot();
+        startMetrics();
+        CPU = createCPU(0);
+        try {
+            Checkpoint.restore(this, snapshot);
+        } catch (IOException | RuntimeException e) {
+            shutdown();
+            throw e;
+        }
+        runBatch();
+    }
+
+    // Registers the metrics of the CPUs when metrics are enabled.
+    void startMetrics() {
+        metrics = null;
+        if (collectMetrics) {
+            metrics = new OperatingSystemMetrics(this);
+            metrics.register();
+        }
+    }
+
+    // Creates a CPU connected to memory, with the caches, DMA channel, counters, and tracer that the settings ask for.
+    CentralProcessingUnit createCPU(int id) {
+        CentralProcessingUnit cpu = new CentralProcessingUnit(MMU);
+        cpu.id = id;
+        cpu.instructionCache = instructionCache == null ? null : instructionCache.copy();
+        cpu.dataCache = dataCache == null ? null : dataCache.copy();
+        cpu.blockOnIO = DMA != null || physicalCores != null;
+        if (collectMetrics) {
+            cpu.counters = new ExecutionCounters();
+        }
+        if (traceDepth > 0) {
+            cpu.tracer = new ExecutionTracer(traceDepth, id, traceDirectory, traceOnHalt);
+        }
+        return cpu;
+    }
+
+    // Runs every job of the loaded batch on the CPU, switching between processes as the scheduling policy decides, then prints the reports.
+    void runBatch() {
+        Timer checkpointTimer = startCheckpoints();
+        try {
+            while (finishedJobs < jobQueue.size()) {
+                // The long-term scheduler admits as many waiting jobs as fit in memory.
+                longTermScheduler();
+
+                // Makes the processes whose IO has completed ready again, and idles until the next interrupt when every other process is waiting for IO.
+                if (DMA != null) {
+                    serviceInterrupts();
+                    if (readyQueue.isEmpty() && DMA.getPending() > 0) {
+                        awaitInterrupt();
+                        serviceInterrupts();
+                    }
+                }
+
+                // As all components are ready, the short-term scheduler is called to find a ready process and dispatch it to the CPU.
+                shortTermScheduler();
+
+                // Now that the process is ready, PCB, and PC are set, the CPU runs the process until it finishes, its quantum runs out, or it waits for IO.
+                runProcess(CPU, PCB, schedulingPolicy.quantum());
+
+                if (PCB.waiting) {
+                    // Saves the state of the process and hands its IO request to the DMA channel.
+                    block(CPU, PCB);
+                } else if (PCB.programCounter < PCB.instructionCount) {
+                    // Saves the state of the preempted process and puts it back in the ready queue.
+                    preempt();
+                } else {
+                    // Frees the memory of the finished process for the next jobs.
+                    terminate(CPU, PCB);
+                    finishedJobs++;
+                }
+            }
+        } finally {
+            stopCheckpoints(checkpointTimer);
+            shutdown();
+        }
+
+        if (schedulingReport) {
+            printSchedulingReport();
+        }
+        if (instructionCache != null || dataCache != null) {
+            printCacheReport();
+        }
+        if (DMA != null) {
+            printIOReport();
+        }
+        if (MMU.getPager() != null) {
+            printPagingReport();
+        }
+        if (sharedPrograms != null) {
+            printSharingReport();
+        }
+        if (metrics != null) {
+            metrics.printReport();
+        }
+    }
+
+    // Runs a process on a CPU until it finishes, or until it has run the given number of instructions when the quantum is above 0.
+    // The driver iterates through the instructions of the program, executing the data path cycle through the CPU for each instruction.
+    void runProcess(CentralProcessingUnit cpu, ProcessControlBlock pcb, int quantum) {
+        long start = System.nanoTime();
+        long retired = cpu.instructionsExecuted;
+        // Counts the quantum in retired instructions, as a compiled block retires several in one cycle.
+        long limit = cpu.instructionsExecuted + quantum;
+        while(pcb.programCounter < pcb.instructionCount && !pcb.waiting && (quantum == 0 || cpu.instructionsExecuted < limit)) {
+            // Syncs the PCB and CPU program counters.
+            cpu.PC = pcb.programCounter;
+            // Runs the data path cycle.
+            cpu.run();
+            // Iterates the program counter.
+            pcb.programCounter++;
+            // Takes a checkpoint between two instructions when one is due, with the process's statistics up to date.
+            // After an IO instruction, the checkpoint waits for the next process, as the request is only posted to the DMA channel once the process has blocked.
+            if (checkpointRequested && !pcb.waiting) {
+                account(cpu, pcb, start, retired);
+                checkpoint(cpu, pcb);
+                start = System.nanoTime();
+                retired = cpu.instructionsExecuted;
+            }
+        }
+        // Leaves the CPU's PC on the next instruction, so a context switch saves where the process stopped.
+        cpu.PC = pcb.programCounter;
+        account(cpu, pcb, start, retired);
+    }
+
+    // Adds the time and the instructions that a process has run on a CPU since the given start to its statistics.
+    void account(CentralProcessingUnit cpu, ProcessControlBlock pcb, long start, long retired) {
+        long time = System.nanoTime() - start;
+        pcb.cpuTime += time;
+        pcb.instructionsExecuted += cpu.instructionsExecuted - retired;
+        if (cpu.counters != null) {
+            cpu.counters.cpuTime += time;
+        }
+    }
+
+    // The multi-core driver, which runs the batch on a number of CPU cores, each on its own thread.
+    // The cores take processes from the shared ready queue without locking, and only take the kernel lock to admit more jobs and to terminate processes.
+    // Reports the aggregate number of instructions per second of all cores.
+    void multiCoreDriver() {
+        sharedReadyQueue = new ConcurrentLinkedQueue<ProcessControlBlock>();
+        finishedJobs = 0;
+        coreFailure = null;
+
+        // Admits the first jobs before starting the cores.
+        synchronized (this) {
+            longTermScheduler();
+        }
+
+        cores = new CentralProcessingUnit[coreCount];
+        Thread[] threads = new Thread[coreCount];
+        long start = System.nanoTime();
+        for (int i = 0; i < coreCount; i++) {
+            CentralProcessingUnit core = createCPU(i);
+            cores[i] = core;
+            threads[i] = new Thread(() -> runCore(core), "CPU-" + i);
+            threads[i].start();
+        }
+
+        // Waits for every core to drain the batch.
+        for (int i = 0; i < coreCount; i++) {
+            try {
+                threads[i].join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the CPU cores", e);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (coreFailure != null) {
+            throw new IllegalStateException("A CPU core failed", coreFailure);
+        }
+
+        // Reports the aggregate throughput of all cores.
+        long instructions = 0;
+        for (int i = 0; i < coreCount; i++) {
+            instructions += cores[i].instructionsExecuted;
+        }
+        System.out.printf("%d cores: %d jobs, %d instructions in %.3f ms (%.0f instructions/sec)%n",
+            coreCount, finishedJobs, instructions, elapsed / 1e6, instructions * 1e9 / Math.max(elapsed, 1));
+        if (instructionCache != null || dataCache != null) {
+            printCacheReport();
+        }
+        if (DMA != null) {
+            printIOReport();
+        }
+        if (MMU.getPager() != null) {
+            printPagingReport();
+        }
+        if (sharedPrograms != null) {
+            printSharingReport();
+        }
+        if (metrics != null) {
+            metrics.printReport();
+        }
+    }
+
+    // The loop of a single CPU core in multi-core mode.
+    // Takes ready processes from the shared ready queue and runs them, until every job of the batch has finished.
+    void runCore(CentralProcessingUnit core) {
+        try {
+            while (true) {
+                ProcessControlBlock pcb = sharedReadyQueue.poll();
+
+                // When the ready queue is empty, admits more jobs and services IO-completion interrupts, or waits for another core to free memory or for an interrupt.
+                if (pcb == null) {
+                    synchronized (this) {
+                        while (sharedReadyQueue.isEmpty() && finishedJobs < jobQueue.size() && coreFailure == null) {
+                            longTermScheduler();
+                            if (DMA != null) {
+                                serviceInterrupts();
+                            }
+                            if (sharedReadyQueue.isEmpty()) {
+                                wait();
+                            }
+                        }
+                        if (sharedReadyQueue.isEmpty() || coreFailure != null) {
+                            return;
+                        }
+                    }
+                    continue;
+                }
+
+                // Switches the core to the process, runs it, and terminates it, unless it stopped to wait for IO.
+                DispatchEvent dispatched = new DispatchEvent();
+                if (dispatched.isEnabled()) {
+                    dispatched.jobId = pcb.jobId;
+                    dispatched.cpu = core.id;
+                    dispatched.readyProcesses = sharedReadyQueue.size();
+                    dispatched.commit();
+                }
+                contextSwitch(core, pcb);
+                runProcess(core, pcb, 0);
+                if (pcb.waiting) {
+                    block(core, pcb);
+                    continue;
+                }
+
+                synchronized (this) {
+                    terminate(core, pcb);
+                    finishedJobs++;
+                    notifyAll();
+                }
+            }
+        } catch (Throwable e) {
+            synchronized (this) {
+                if (coreFailure == null) {
+                    coreFailure = e;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    // The virtual-thread driver, which runs every admitted process on its own virtual thread, with a CPU of its own.
+    // The process threads share coreCount physical cores: a thread holds a core while its CPU runs, and gives it up when its quantum runs out or it parks for IO, so any number of processes can be alive at once.
+    // The driver thread is the kernel: it admits jobs as memory frees up and services the IO-completion interrupts that unpark the waiting threads.
+    // Reports the number of jobs completed per second.
+    void virtualThreadDriver() {
+        // Bounds the carrier threads of the virtual threads to the physical cores, which only takes effect if no virtual thread has been started in this JVM yet.
+        // The semaphore of the cores bounds the running processes either way.
+        System.getProperties().putIfAbsent("jdk.virtualThreadScheduler.parallelism", String.valueOf(coreCount));
+        System.getProperties().putIfAbsent("jdk.virtualThreadScheduler.maxPoolSize", String.valueOf(coreCount));
+        physicalCores = new Semaphore(coreCount, true);
+        processCPUs = new ConcurrentLinkedQueue<CentralProcessingUnit>();
+        finishedJobs = 0;
+        coreFailure = null;
+
+        long start = System.nanoTime();
+        try {
+            synchronized (this) {
+                // Admits jobs whenever a process frees memory, and services the interrupts of the DMA channel, until every job has finished.
+                while (finishedJobs < jobQueue.size() && coreFailure == null) {
+                    longTermScheduler();
+                    if (DMA != null) {
+                        serviceInterrupts();
+                    }
+                    if (finishedJobs < jobQueue.size()) {
+                        wait();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the processes", e);
+        } finally {
+            // Stops the process threads that are still alive when the batch ends early, before taking away the cores and memory that they use.
+            stopProcessThreads();
+            physicalCores = null;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (coreFailure != null) {
+            throw new IllegalStateException("A process thread failed", coreFailure);
+        }
+
+        // Reports the throughput of the batch in jobs and instructions.
+        long instructions = 0;
+        for (ProcessControlBlock pcb : jobQueue) {
+            instructions += pcb.instructionsExecuted;
+        }
+        System.out.printf("%d virtual threads on %d cores: %d jobs, %d instructions in %.3f ms (%.0f jobs/sec, %.0f instructions/sec)%n",
+            jobQueue.size(), coreCount, finishedJobs, instructions, elapsed / 1e6,
+            finishedJobs * 1e9 / Math.max(elapsed, 1), instructions * 1e9 / Math.max(elapsed, 1));
+        if (schedulingReport) {
+            printSchedulingReport();
+        }
+        if (instructionCache != null || dataCache != null) {
+            printCacheReport();
+        }
+        if (DMA != null) {
+            printIOReport();
+        }
+        if (MMU.getPager() != null) {
+            printPagingReport();
+        }
+        if (sharedPrograms != null) {
+            printSharingReport();
+        }
+        if (metrics != null) {
+            metrics.printReport();
+        }
+    }
+
+    // Interrupts every process thread that has not terminated its process, and waits for all of them to end.
+    // A thread that waits for a core or for IO stops at once, while a thread that is running its process stops at its next wait, or when the process halts.
+    void stopProcessThreads() {
+        ArrayList<Thread> threads = new ArrayList<Thread>();
+        synchronized (this) {
+            for (ProcessControlBlock pcb : jobQueue) {
+                if (pcb.thread != null) {
+                    threads.add(pcb.thread);
+                }
+            }
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (true) {
+                try {
+                    thread.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Starts the virtual thread of a process that has just been admitted in virtual-thread mode.
+    void startProcessThread(ProcessControlBlock pcb) {
+        pcb.thread = Thread.ofVirtual().name("job-" + pcb.jobId).unstarted(() -> runProcessThread(pcb));
+        pcb.thread.start();
+    }
+
+    // The loop of a process thread in virtual-thread mode.
+    // Runs the process on its own CPU whenever it gets a physical core, for a quantum at a time when the scheduling policy has one, parks the thread while the process waits for IO, and terminates the process when it halts.
+    void runProcessThread(ProcessControlBlock pcb) {
+        try {
+            CentralProcessingUnit cpu = createCPU(pcb.jobId);
+            if (cpu.counters != null) {
+                processCPUs.add(cpu);
+            }
+            contextSwitch(cpu, pcb);
+            int quantum = schedulingPolicy.quantum();
+            while (pcb.programCounter < pcb.instructionCount) {
+                // The cores are handed out in the order that the threads asked for them, so a process whose quantum ran out goes behind the others.
+                physicalCores.acquire();
+                try {
+                    runProcess(cpu, pcb, quantum);
+                } finally {
+                    physicalCores.release();
+                }
+                if (pcb.waiting) {
+                    performIO(cpu, pcb);
+                }
+            }
+
+            // Frees the memory of the finished process, and wakes up the kernel to admit more jobs.
+            synchronized (this) {
+                terminate(cpu, pcb);
+                pcb.thread = null;
+                finishedJobs++;
+                notifyAll();
+            }
+        } catch (Throwable e) {
+            synchronized (this) {
+                if (coreFailure == null) {
+                    coreFailure = e;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    // Carries out the IO request of a process in virtual-thread mode, parking its thread until the transfer has completed.
+    // With a DMA channel, the request is posted to the channel and the kernel unparks the thread when it services the interrupt.
+    // Otherwise, the thread parks for the latency of the device and carries out the transfer itself.
+    void performIO(CentralProcessingUnit cpu, ProcessControlBlock pcb) throws InterruptedException {
+        if (DMA != null) {
+            block(cpu, pcb);
+            while (isWaiting(pcb)) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } else {
+            cpu.saveState(pcb);
+            pcb.ioRequests++;
+            DirectMemoryAccessController.simulateLatency(ioLatency);
+            DirectMemoryAccessController.transfer(MMU, pcb);
+            pcb.waiting = false;
+        }
+        // Restores the registers, which hold the word that an RD transfer read.
+        contextSwitch(cpu, pcb);
+    }
+
+    // Returns whether a process is still waiting for its IO request, under the kernel lock that the interrupts are serviced with.
+    private synchronized boolean isWaiting(ProcessControlBlock pcb) {
+        return pcb.waiting;
+    }
+
+    // Instantiates the devices and the queues of the OS.
+    void boot() {
+        // Instantiates two objects for two devices: the IO Controller and Memory Management Unit.
+        // These represent the IO/memory devices that will be used later.
+        IOC = new IOController();
+        MMU = new MemoryManagementUnit(memoryFrames);
+
+        // Stops the DMA channel and the metrics of any previous batch, then connects a new channel to the new memory.
+        shutdown();
+        connectDMA();
+
+        // Gives demand-paged memory its pager and swap file.
+        if (pageReplacement != null) {
+            try {
+                MMU.enableDemandPaging(new DemandPager(memoryFrames, pageReplacement, new SwapSpace(swapPath), this));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not open the swap file", e);
+            }
+        }
+        enableCodeSharing(shareCode);
+
+        // Creates two empty job and ready queues to house the jobs that will be executed.
+        jobQueue = new ArrayList<ProcessControlBlock>();
+        readyQueue = new ArrayList<ProcessControlBlock>();
+        sharedReadyQueue = null;
+        physicalCores = null;
+        processCPUs = null;
+        nextJob = 0;
+    }
+
+    // Makes the code pages of the jobs in the new memory shareable when share is set, forgetting the instruction sections shared before.
+    void enableCodeSharing(boolean share) {
+        sharedPrograms = null;
+        if (share && MMU.getPager() == null) {
+            MMU.enableCodeSharing();
+            sharedPrograms = new HashMap<ContentKey, InstructionCache>();
+        }
+    }
+
+    // Connects the DMA channel between memory and the kernel when direct memory access is enabled, stopping the channel connected before.
+    void connectDMA() {
+        if (DMA != null) {
+            DMA.shutdown();
+        }
+        DMA = null;
+        ioIdleTime = 0;
+        if (directMemoryAccess) {
+            DMA = new DirectMemoryAccessController(MMU, this, ioLatency);
+            DMA.start();
+        }
+    }
+
+    // The loader method, responsible for opening the program file and saving the contents into the virtual disc.
+    // This method works off of a virtual input port that resembles an IO connection between the virtual disc and the abritrary location of the program file.
+    // The method streams through the document in one pass, adds the hexcode word-by-word to the virtual disc, and creates a PCB in the job queue for every "job" line.
+    void loader(String path) throws IOException {
+
+        try (BufferedReader inputPort = Files.newBufferedReader(Paths.get(path))) {
+            PCB = null;
+
+            String line;
+            while ((line = inputPort.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                if (line.startsWith("//")) {
+                    String[] fields = line.substring(2).trim().split("\\s+");
+                    String card = fields[0].toLowerCase();
+
+                    // A "job" or "end" line finishes the previous job.
+                    if (card.equals("job") || card.equals("end")) {
+                        finishJob();
+                    }
+
+                    // A "job" line holds the job id, instruction count, and priority in hex.
+                    // The job's words start at the current end of the disc.
+                    if (card.equals("job")) {
+                        PCB = new ProcessControlBlock();
+                        PCB.jobId = controlField(fields, 1);
+                        PCB.priority = controlField(fields, 3);
+                        PCB.discAddress = IOC.getUsedSpace();
+                    }
+
+                    // A "data" line marks the end of the instructions and holds the sizes of the input, output, and temp buffers in hex.
+                    if (card.equals("data") && PCB != null) {
+                        PCB.instructionCount = IOC.getUsedSpace() - PCB.discAddress;
+                        PCB.dataOffset = PCB.instructionCount;
+                        PCB.inputBufferSize = controlField(fields, 1);
+                        PCB.outputBufferSize = controlField(fields, 2);
+                        PCB.tempBufferSize = controlField(fields, 3);
+                    }
+                    continue;
+                }
+
+                // Words before any "job" line belong to a job without a header.
+                if (PCB == null) {
+                    PCB = new ProcessControlBlock();
+                    PCB.discAddress = IOC.getUsedSpace();
+                }
+                IOC.write(parseWord(line));
+            }
+
+            finishJob();
+        }
+    }
+
+    // Finishes the job that the loader is reading, and pushes its PCB into the job queue.
+    private void finishJob() {
+        if (PCB == null) {
+            return;
+        }
+        PCB.wordCount = IOC.getUsedSpace() - PCB.discAddress;
+        // A job without a "data" line is all instructions.
+        if (PCB.dataOffset == 0 && PCB.instructionCount == 0) {
+            PCB.instructionCount = PCB.wordCount;
+            PCB.dataOffset = PCB.wordCount;
+        }
+        PCB.arrivalTime = System.nanoTime();
+        jobQueue.add(PCB);
+        PCB = null;
+    }
+
+    // Parses an optional hex field of a control line, missing fields are 0.
+    static int controlField(String[] fields, int i) {
+        return i < fields.length ? Integer.parseUnsignedInt(fields[i], 16) : 0;
+    }
+
+    // The image loader method, an alternative loader for binary program images made by the ProgramImage assembler.
+    // The image is memory-mapped and mounted as the virtual disc, so the long-term scheduler hands its words straight to the MMU without creating any strings.
+    // Every job header is checked against the words left on the disc, so a truncated or corrupt image fails here, naming the job, instead of when the job is admitted.
+    void imageLoader(String path) throws IOException {
+
+        try (FileChannel inputPort = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            ByteBuffer image = inputPort.map(FileChannel.MapMode.READ_ONLY, 0, inputPort.size());
+
+            // Checks the file header before reading any of the jobs.
+            if (image.remaining() < ProgramImage.FILE_HEADER_SIZE || image.getInt() != ProgramImage.MAGIC || image.getInt() != ProgramImage.VERSION) {
+                throw new IOException("Not a program image: " + path);
+            }
+            int jobs = image.getInt();
+            if (jobs < 0) {
+                throw new IOException("Program image " + path + " has a negative number of jobs: " + jobs);
+            }
+
+            // Mounts the whole image as the virtual disc, addressed in words.
+            image.position(0);
+            IntBuffer disc = image.asIntBuffer();
+            IOC = new IOController(disc);
+            int address = ProgramImage.FILE_HEADER_SIZE / 4;
+
+            for (int j = 0; j < jobs; j++) {
+                if (disc.limit() - address < ProgramImage.JOB_HEADER_SIZE / 4) {
+                    throw new IOException("Program image " + path + " ends in the header of job " + (j + 1) + " of " + jobs);
+                }
+
+                // Initializes a new PCB for the job from its header.
+                PCB = new ProcessControlBlock();
+                PCB.jobId = disc.get(address);
+                PCB.priority = disc.get(address + 1);
+                PCB.instructionCount = disc.get(address + 2);
+                PCB.dataOffset = disc.get(address + 3);
+                PCB.inputBufferSize = disc.get(address + 4);
+                PCB.outputBufferSize = disc.get(address + 5);
+                PCB.tempBufferSize = disc.get(address + 6);
+                PCB.wordCount = disc.get(address + 7);
+
+                // The job's words follow its header on the disc, and must all be on it.
+                PCB.discAddress = address + ProgramImage.JOB_HEADER_SIZE / 4;
+                String job = "Program image " + path + ", job " + PCB.jobId + " (" + (j + 1) + " of " + jobs + "): ";
+                if (PCB.wordCount < 0 || PCB.wordCount > disc.limit() - PCB.discAddress) {
+                    throw new IOException(job + PCB.wordCount + " words, but " + (disc.limit() - PCB.discAddress) + " are left on the disc");
+                }
+                if (PCB.instructionCount < 0 || PCB.instructionCount > PCB.wordCount) {
+                    throw new IOException(job + PCB.instructionCount + " instructions in " + PCB.wordCount + " words");
+                }
+                if (PCB.dataOffset < 0 || PCB.dataOffset > PCB.wordCount) {
+                    throw new IOException(job + "data offset " + PCB.dataOffset + " outside of its " + PCB.wordCount + " words");
+                }
+                address = PCB.discAddress + PCB.wordCount;
+
+                PCB.arrivalTime = System.nanoTime();
+                jobQueue.add(PCB);
+            }
+        }
+    }
+
+    // The long-term scheduler method, responsible for preparing the programs to be dispatched as jobs.
+    // Transfers the programs in the job queue from virtual disc to pages in virtual memory, in order, for as long as there are enough free frames for them.
+    // With demand paging, every job is admitted with an empty page table instead, and its pages are loaded on page faults.
+    // With code sharing, the MMU copies the job's words itself, mapping the code pages that another job already holds to the same frames.
+    void longTermScheduler() {
+        boolean demandPaging = MMU.getPager() != null;
+        boolean sharing = MMU.sharesCode();
+
+        while (nextJob < jobQueue.size()) {
+            PCB = jobQueue.get(nextJob);
+
+            // Stops once the next job does not fit, unless memory is empty, in which case the allocation reports that the job can never fit.
+            if (!demandPaging && !sharing && MMU.getUsedSpace() > 0 && MMU.getFreeFrames() < MemoryManagementUnit.framesFor(PCB.wordCount)) {
+                break;
+            }
+
+            JobLoadEvent loaded = new JobLoadEvent();
+            loaded.begin();
+
+            if (sharing) {
+                // The MMU decides whether the job fits, as it keeps a free frame for every shared page in case the job writes into it.
+                int pageNumber = MMU.allocateShared(IOC, PCB.discAddress, PCB.wordCount, PCB.instructionCount);
+                if (pageNumber < 0) {
+                    break;
+                }
+                PCB.pageNumber = pageNumber;
+            } else {
+                // Allocates a page table with enough frames for the program, and saves its number in the PCB.
+                PCB.pageNumber = MMU.allocate(PCB.wordCount);
+            }
+
+            if (demandPaging) {
+                // Lets the pager load the job's pages from the Virtual Disc when they are touched.
+                MMU.map(PCB);
+            } else if (!sharing) {
+                // Iterates through the job's words on the Virtual Disc and writes them to the process's logical space.
+                for (int i = 0; i < PCB.wordCount; i++) {
+                    MMU.write(PCB.pageNumber, i, IOC.read(PCB.discAddress + i));
+                }
+            }
+
+            admit();
+            nextJob++;
+
+            if (loaded.shouldCommit()) {
+                loaded.jobId = PCB.jobId;
+                loaded.words = PCB.wordCount;
+                loaded.instructionCount = PCB.instructionCount;
+                loaded.superinstructions = PCB.superinstructions;
+                loaded.foldedReads = PCB.foldedReads;
+                loaded.commit();
+            }
+        }
+    }
+
+    // Admits the program that has just been copied into memory as a ready process.
+    void admit() {
+        // Sets the PCB's variables to some initial values, prepares it for dispatching.
+        // The program is loaded at the start of its logical space, so the base register for addressing its data is 0.
+        PCB.dataMemoryOffset = 0;
+        PCB.programCounter = 0;
+        PCB.ready = true;
+        prepare(PCB);
+
+        // Pushes the program into the ready queue, or the shared ready queue of the cores in multi-core mode, or starts its thread in virtual-thread mode.
+        if (physicalCores != null) {
+            startProcessThread(PCB);
+        } else if (sharedReadyQueue != null) {
+            sharedReadyQueue.add(PCB);
+        } else {
+            readyQueue.add(PCB);
+        }
+    }
+
+    // Builds the structures that a process in memory needs to run: its pre-decoded instructions, the ones of the execution engine, and its cache counters.
+    // Used when a job is admitted, and when a process is restored from a snapshot.
+    void prepare(ProcessControlBlock pcb) {
+        // With code sharing, a job of a program that another job has already decoded uses the same instructions.
+        // The optimizer folds the data of each job into its instructions, so optimized instructions are never shared.
+        if (sharedPrograms != null && !optimize) {
+            pcb.instructions = sharedInstructions(pcb);
+        } else {
+            pcb.instructions = decodeInstructions(pcb);
+        }
+
+        // Gives the process its own counters for the cache simulators.
+        if (instructionCache != null) {
+            pcb.instructionCacheCounters = new long[CacheSimulator.COUNTERS];
+        }
+        if (dataCache != null) {
+            pcb.dataCacheCounters = new long[CacheSimulator.COUNTERS];
+        }
+
+        // The tiered engine starts counting how hot each instruction is, for compiling its hot blocks.
+        if (engine == ExecutionEngine.TIERED) {
+            pcb.instructions.enableBlocks(true);
+        }
+
+        // The load-time optimizer folds read-only data and fuses superinstructions for the interpreters, as the tiered engine compiles whole blocks instead.
+        // It needs the whole instruction section decoded, so it does not run on demand-paged memory.
+        if (optimize && engine != ExecutionEngine.TIERED && MMU.getPager() == null) {
+            LoadTimeOptimizer.optimize(pcb, MMU);
+        }
+    }
+
+    // Decodes the instruction section once, so the CPU executes from the pre-decoded form instead of re-decoding every cycle.
+    // With demand paging, the entries start out empty, and each instruction is decoded the first time it is fetched, so code pages are only loaded when they run.
+    InstructionCache decodeInstructions(ProcessControlBlock pcb) {
+        InstructionCache instructions = new InstructionCache(pcb.instructionCount);
+        if (MMU.getPager() == null) {
+            for (int i = 0; i < pcb.instructionCount; i++) {
+                instructions.load(i, MMU.read(pcb.pageNumber, i));
+            }
+        }
+
+        // The threaded-code engine also translates every instruction into a pre-bound handler.
+        if (engine == ExecutionEngine.THREADED) {
+            ThreadedCode.translate(instructions, pcb.dataMemoryOffset);
+        }
+        return instructions;
+    }
+
+    // Returns the shared instruction section of the program of a job, decoding it if no job of the same program has been prepared yet.
+    // The section is fully decoded, and translated into handlers for the threaded-code engine, before it is shared, and it is published under the lock, so the cores never change it or see it half built.
+    // The tiered engine counts and compiles blocks per process, so each of its jobs gets a private copy of the shared decoding.
+    InstructionCache sharedInstructions(ProcessControlBlock pcb) {
+        int[] words = new int[pcb.instructionCount];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = MMU.read(pcb.pageNumber, i);
+        }
+        ContentKey program = new ContentKey(words);
+        InstructionCache instructions;
+        synchronized (sharedPrograms) {
+            instructions = sharedPrograms.get(program);
+            if (instructions == null) {
+                instructions = decodeInstructions(pcb);
+                instructions.share();
+                sharedPrograms.put(program, instructions);
+            }
+        }
+        return engine == ExecutionEngine.TIERED ? instructions.copy() : instructions;
+    }
+
+    // Parses a line of the program file into a 32-bit word.
+    // Program lines are written in hex with a "0x" prefix, any other line is read as decimal.
+    static int parseWord(String line) {
+        if (line.startsWith("0x") || line.startsWith("0X")) {
+            return Integer.parseUnsignedInt(line.substring(2), 16);
+        }
+        return Integer.parseInt(line);
+    }
+
+    // The short-term scheduler method, for finding and dispatching the program for execution.
+    void shortTermScheduler() {
+        // Asks the scheduling policy for the next ready program.
+        int i = schedulingPolicy.select(readyQueue);
+        if (i < 0) {
+            throw new IllegalStateException("No ready process to dispatch");
+        }
+        // Then dispatches that program.
+        DispatchEvent dispatched = new DispatchEvent();
+        if (dispatched.isEnabled()) {
+            dispatched.jobId = readyQueue.get(i).jobId;
+            dispatched.cpu = CPU.id;
+            dispatched.readyProcesses = readyQueue.size();
+            dispatched.commit();
+        }
+        dispatch(i);
+    }
+
+    // Dispatcher method, to be used by the short-term scheduler.
+    void dispatch(int i) {
+        // Takes the program out of the ready queue and switches the CPU to it.
+        PCB = readyQueue.remove(i);
+        contextSwitch(CPU, PCB);
+    }
+
+    // Blocks a process that stopped at an IO instruction: saves its state from the CPU, then posts its IO request to the DMA channel.
+    // The process stays out of the ready queue until the channel's completion interrupt is serviced.
+    void block(CentralProcessingUnit cpu, ProcessControlBlock pcb) {
+        ContextSwitchEvent event = new ContextSwitchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        cpu.saveState(pcb);
+        pcb.contextSwitchTime += System.nanoTime() - start;
+        commit(event, cpu, pcb, "block");
+        pcb.ioRequests++;
+        DMA.submit(pcb);
+    }
+
+    // Services the pending IO-completion interrupts of the DMA channel, putting every process whose transfer has completed back in the ready queue, or unparking its thread in virtual-thread mode.
+    // In multi-core and virtual-thread modes, this is only called while holding the kernel lock.
+    void serviceInterrupts() {
+        ProcessControlBlock pcb;
+        while ((pcb = DMA.nextInterrupt()) != null) {
+            pcb.waiting = false;
+            if (pcb.thread != null) {
+                LockSupport.unpark(pcb.thread);
+            } else if (sharedReadyQueue != null) {
+                sharedReadyQueue.add(pcb);
+            } else {
+                readyQueue.add(pcb);
+            }
+        }
+    }
+
+    // Idles the CPU until the DMA channel raises an interrupt, counting the time towards the IO idle time.
+    synchronized void awaitInterrupt() {
+        long start = System.nanoTime();
+        while (!DMA.hasInterrupt()) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for IO", e);
+            }
+        }
+        ioIdleTime += System.nanoTime() - start;
+    }
+
+    // The IO-completion interrupt line of the DMA channel, which wakes up an idle CPU or core.
+    synchronized void interrupt() {
+        notifyAll();
+    }
+
+    // Stops the thread of the DMA channel, if there is one, closes the swap file of demand-paged memory, and unregisters the metrics.
+    void shutdown() {
+        if (DMA != null) {
+            DMA.shutdown();
+        }
+        if (MMU != null && MMU.getPager() != null) {
+            try {
+                MMU.getPager().getSwap().close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not close the swap file", e);
+            }
+        }
+        if (metrics != null) {
+            metrics.unregister();
+        }
+    }
+
+    // Saves the state of the process on the CPU after its quantum ran out, and puts it at the back of the ready queue.
+    void preempt() {
+        ContextSwitchEvent event = new ContextSwitchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        CPU.saveState(PCB);
+        PCB.contextSwitchTime += System.nanoTime() - start;
+        commit(event, CPU, PCB, "preempt");
+        readyQueue.add(PCB);
+    }
+
+    // Switches a CPU to a process by restoring the process's registers, PC, and base register.
+    // Counts the switch and the time it took in the PCB.
+    void contextSwitch(CentralProcessingUnit cpu, ProcessControlBlock pcb) {
+        ContextSwitchEvent event = new ContextSwitchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        cpu.restoreState(pcb);
+        pcb.contextSwitches++;
+        pcb.contextSwitchTime += System.nanoTime() - start;
+        commit(event, cpu, pcb, "restore");
+    }
+
+    // Commits a timed context switch event, if a recording has it enabled.
+    private static void commit(ContextSwitchEvent event, CentralProcessingUnit cpu, ProcessControlBlock pcb, String kind) {
+        if (event.shouldCommit()) {
+            event.jobId = pcb.jobId;
+            event.cpu = cpu.id;
+            event.kind = kind;
+            event.commit();
+        }
+    }
+
+    // Terminates a process that finished on a CPU, and frees its memory for the next jobs.
+    void terminate(CentralProcessingUnit cpu, ProcessControlBlock pcb) {
+        pcb.ready = false;
+        pcb.terminated = true;
+        pcb.completionTime = System.nanoTime();
+        if (captureFinalState) {
+            pcb.finalRegisters = cpu.registers.clone();
+            pcb.finalMemory = new int[pcb.wordCount];
+            for (int i = 0; i < pcb.wordCount; i++) {
+                pcb.finalMemory[i] = MMU.read(pcb.pageNumber, i);
+            }
+        }
+        MMU.release(pcb.pageNumber);
+
+        HaltEvent halted = new HaltEvent();
+        if (halted.isEnabled()) {
+            halted.jobId = pcb.jobId;
+            halted.cpu = cpu.id;
+            halted.instructions = pcb.instructionsExecuted;
+            halted.cpuTime = pcb.cpuTime;
+            halted.turnaroundTime = pcb.getTurnaroundTime();
+            halted.commit();
+        }
+    }
+
+    // Writes a checkpoint of the whole machine while a process runs on the CPU.
+    // Saves the CPU's state into the running process's PCB first, so the snapshot resumes the process after the instruction it last retired.
+    void checkpoint(CentralProcessingUnit cpu, ProcessControlBlock running) {
+        checkpointRequested = false;
+        cpu.PC = running.programCounter;
+        cpu.saveState(running);
+        try {
+            // Holds the DMA channel's lock, so no transfer is half done in the snapshot.
+            if (DMA != null) {
+                synchronized (DMA) {
+                    Checkpoint.save(this, checkpointPath, running);
+                }
+            } else {
+                Checkpoint.save(this, checkpointPath, running);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write the checkpoint to " + checkpointPath, e);
+        }
+    }
+
+    // Starts requesting checkpoints on the timer and the trigger file, if checkpoints are enabled.
+    // Returns the timer, or null if there is neither a periodic checkpoint nor a trigger file.
+    Timer startCheckpoints() {
+        checkpointRequested = false;
+        if (checkpointPath == null || (checkpointInterval <= 0 && checkpointTrigger == null)) {
+            return null;
+        }
+        Timer timer = new Timer("Checkpoint", true);
+        if (checkpointInterval > 0) {
+            timer.scheduleAtFixedRate(new TimerTask() {
+                public void run() {
+                    checkpointRequested = true;
+                }
+            }, checkpointInterval, checkpointInterval);
+        }
+        if (checkpointTrigger != null) {
+            timer.schedule(new TimerTask() {
+                public void run() {
+                    try {
+                        if (Files.deleteIfExists(checkpointTrigger)) {
+                            checkpointRequested = true;
+                        }
+                    } catch (IOException e) {
+                        // The trigger is polled again, so a file that cannot be deleted yet is seen on a later poll.
+                    }
+                }
+            }, TRIGGER_POLL_INTERVAL, TRIGGER_POLL_INTERVAL);
+        }
+        return timer;
+    }
+
+    // Stops requesting checkpoints.
+    void stopCheckpoints(Timer timer) {
+        if (timer != null) {
+            timer.cancel();
+        }
+        checkpointRequested = false;
+    }
+
+    // Dumps the execution traces of every CPU on request, named after the job that each CPU last ran.
+    // Returns the paths of the trace files.
+    ArrayList<Path> dumpTraces() throws IOException {
+        ArrayList<Path> files = new ArrayList<Path>();
+        CentralProcessingUnit[] cpus = coreCount > 1 ? cores : new CentralProcessingUnit[] {CPU};
+        if (cpus == null) {
+            return files;
+        }
+        for (CentralProcessingUnit cpu : cpus) {
+            if (cpu != null && cpu.tracer != null) {
+                files.add(cpu.tracer.dump(cpu.process == null ? 0 : cpu.process.jobId, "request"));
+            }
+        }
+        return files;
+    }
+
+    // Prints the number of IO requests of every finished job, the number of DMA transfers, and the time the CPU idled waiting for IO.
+    void printIOReport() {
+        long requests = 0;
+        for (ProcessControlBlock pcb : jobQueue) {
+            requests += pcb.ioRequests;
+        }
+        System.out.printf("DMA: %d IO requests, %d transfers, %.3f ms of CPU idle time waiting for IO%n", requests, DMA.getTransfers(), ioIdleTime / 1e6);
+    }
+
+    // Prints the page faults and evictions of every finished job, and the totals of demand-paged memory and its swap file.
+    void printPagingReport() {
+        DemandPager pager = MMU.getPager();
+        SwapSpace swap = pager.getSwap();
+        System.out.printf("Demand paging: %s over %d frames, %d page faults, %d evictions, %d write-backs, %d pages read from swap%n",
+            pager.getPolicy().getClass().getSimpleName(), memoryFrames, pager.getFaults(), pager.getEvictions(), pager.getWriteBacks(), swap.getReads());
+        System.out.printf("%8s %8s %12s %12s%n", "job", "pages", "faults", "evictions");
+        for (ProcessControlBlock pcb : jobQueue) {
+            if (!pcb.terminated) {
+                continue;
+            }
+            System.out.printf("%8d %8d %12d %12d%n", pcb.jobId, MemoryManagementUnit.framesFor(pcb.wordCount), pcb.pageFaults, pcb.pageEvictions);
+        }
+    }
+
+    // Prints how many code pages and instruction sections the jobs shared, and how many shared pages were copied on a write.
+    void printSharingReport() {
+        System.out.printf("Code sharing: %d distinct programs, %d distinct code pages, %d code pages shared, %d pages copied on write%n",
+            sharedPrograms.size(), MMU.getDistinctCodePages(), MMU.getSharedPages(), MMU.getCopiedPages());
+    }
+
+    // Prints the hits, misses, evictions, and memory writes of the instruction and data caches for every finished job.
+    void printCacheReport() {
+        if (instructionCache != null) {
+            System.out.println("I-cache: " + instructionCache);
+        }
+        if (dataCache != null) {
+            System.out.println("D-cache: " + dataCache);
+        }
+        System.out.printf("%8s %10s %10s %8s %10s %10s %10s %8s %10s%n", "job", "I-hits", "I-misses", "I-rate", "D-hits", "D-misses", "D-evicted", "D-rate", "D-writes");
+        for (ProcessControlBlock pcb : jobQueue) {
+            if (!pcb.terminated) {
+                continue;
+            }
+            long[] i = pcb.instructionCacheCounters != null ? pcb.instructionCacheCounters : new long[CacheSimulator.COUNTERS];
+            long[] d = pcb.dataCacheCounters != null ? pcb.dataCacheCounters : new long[CacheSimulator.COUNTERS];
+            System.out.printf("%8d %10d %10d %7.2f%% %10d %10d %10d %7.2f%% %10d%n", pcb.jobId,
+                i[CacheSimulator.HITS], i[CacheSimulator.MISSES], hitRate(i),
+                d[CacheSimulator.HITS], d[CacheSimulator.MISSES], d[CacheSimulator.EVICTIONS], hitRate(d), d[CacheSimulator.MEMORY_WRITES]);
+        }
+    }
+
+    // Returns the hit rate of a set of cache counters in percent.
+    private static double hitRate(long[] counters) {
+        long accesses = counters[CacheSimulator.HITS] + counters[CacheSimulator.MISSES];
+        return accesses == 0 ? 0 : 100.0 * counters[CacheSimulator.HITS] / accesses;
+    }
+
+    // Prints the waiting time, turnaround time, and context-switch overhead of every finished job, and their averages.
+    // Times are measured from when the job entered the job queue, so waiting time includes the time spent waiting for memory.
+    void printSchedulingReport() {
+        System.out.printf("%8s %8s %14s %14s %14s %9s %14s%n", "job", "priority", "cpu (us)", "waiting (us)", "turnaround (us)", "switches", "switch (us)");
+        long waiting = 0;
+        long turnaround = 0;
+        long switchTime = 0;
+        int jobs = 0;
+        for (ProcessControlBlock pcb : jobQueue) {
+            if (!pcb.terminated) {
+                continue;
+            }
+            System.out.printf("%8d %8d %14.1f %14.1f %14.1f %9d %14.1f%n", pcb.jobId, pcb.priority, pcb.cpuTime / 1e3,
+                pcb.getWaitingTime() / 1e3, pcb.getTurnaroundTime() / 1e3, pcb.contextSwitches, pcb.contextSwitchTime / 1e3);
+            waiting += pcb.getWaitingTime();
+            turnaround += pcb.getTurnaroundTime();
+            switchTime += pcb.contextSwitchTime;
+            jobs++;
+        }
+        if (jobs > 0) {
+            System.out.printf("%s: %d jobs, average waiting %.1f us, average turnaround %.1f us, total context-switch overhead %.1f us%n",
+                schedulingPolicy.getClass().getSimpleName(), jobs, waiting / 1e3 / jobs, turnaround / 1e3 / jobs, switchTime / 1e3);
+        }
+    }
+}
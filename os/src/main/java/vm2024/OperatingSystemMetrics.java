@@ -0,0 +1,216 @@
+package vm2024;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// The metrics of an OS, which sum the counters of its CPUs and expose them as an MXBean.
+// The values are read live from the running CPUs without locking, so a reading taken during a batch can be slightly behind.
+class OperatingSystemMetrics implements OperatingSystemMetricsMXBean {
+
+    // Number of the next OS to register, which keeps the names of several OS instances in one JVM apart.
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private OperatingSystem os;
+    private ObjectName name;
+
+    // Constructor for the metrics of an OS.
+    OperatingSystemMetrics(OperatingSystem os) {
+        this.os = os;
+    }
+
+    // Registers the MXBean with the platform MBean server.
+    void register() {
+        try {
+            name = new ObjectName("vm2024:type=OperatingSystem,id=" + NEXT_ID.getAndIncrement());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the OS metrics", e);
+        }
+    }
+
+    // Unregisters the MXBean, if it is registered.
+    void unregister() {
+        if (name == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister the OS metrics", e);
+        }
+        name = null;
+    }
+
+    // Returns the counters of every CPU of the OS.
+    private ExecutionCounters[] counters() {
+        CentralProcessingUnit[] cpus = os.coreCount > 1 ? os.cores : new CentralProcessingUnit[] {os.CPU};
+        if (os.processCPUs != null) {
+            cpus = os.processCPUs.toArray(new CentralProcessingUnit[0]);
+        }
+        if (cpus == null) {
+            return new ExecutionCounters[0];
+        }
+        ExecutionCounters[] counters = new ExecutionCounters[cpus.length];
+        int n = 0;
+        for (CentralProcessingUnit cpu : cpus) {
+            if (cpu != null && cpu.counters != null) {
+                counters[n++] = cpu.counters;
+            }
+        }
+        return Arrays.copyOf(counters, n);
+    }
+
+    public long getInstructionsExecuted() {
+        long instructions = 0;
+        for (long count : opcodeCounts()) {
+            instructions += count;
+        }
+        return instructions;
+    }
+
+    public long getCycles() {
+        long cycles = 0;
+        for (ExecutionCounters counters : counters()) {
+            cycles += counters.cycles;
+        }
+        return cycles;
+    }
+
+    public long getBlockCycles() {
+        long cycles = 0;
+        for (ExecutionCounters counters : counters()) {
+            cycles += counters.blockCycles;
+        }
+        return cycles;
+    }
+
+    public long getCompiledBlocks() {
+        long blocks = 0;
+        for (ExecutionCounters counters : counters()) {
+            blocks += counters.compiledBlocks;
+        }
+        return blocks;
+    }
+
+    public long getCompileFailures() {
+        long failures = 0;
+        for (ExecutionCounters counters : counters()) {
+            failures += counters.compileFailures;
+        }
+        return failures;
+    }
+
+    public double getCyclesPerInstruction() {
+        long instructions = getInstructionsExecuted();
+        return instructions == 0 ? 0 : (double) getCycles() / instructions;
+    }
+
+    public double getNanosPerInstruction() {
+        long instructions = getInstructionsExecuted();
+        long cpuTime = 0;
+        for (ExecutionCounters counters : counters()) {
+            cpuTime += counters.cpuTime;
+        }
+        return instructions == 0 ? 0 : (double) cpuTime / instructions;
+    }
+
+    public long getMemoryReads() {
+        long reads = 0;
+        for (ExecutionCounters counters : counters()) {
+            reads += counters.memoryReads;
+        }
+        return reads;
+    }
+
+    public long getMemoryWrites() {
+        long writes = 0;
+        for (ExecutionCounters counters : counters()) {
+            writes += counters.memoryWrites;
+        }
+        return writes;
+    }
+
+    public Map<String, Long> getOpcodeMix() {
+        long[] counts = opcodeCounts();
+        Map<String, Long> mix = new LinkedHashMap<String, Long>();
+        for (int opcode = 0; opcode < counts.length; opcode++) {
+            if (counts[opcode] > 0) {
+                mix.put(Disassembler.mnemonic(opcode), counts[opcode]);
+            }
+        }
+        return mix;
+    }
+
+    public int getJobs() {
+        return os.jobQueue == null ? 0 : os.jobQueue.size();
+    }
+
+    public int getFinishedJobs() {
+        return os.finishedJobs;
+    }
+
+    public int getReadyProcesses() {
+        if (os.sharedReadyQueue != null) {
+            return os.sharedReadyQueue.size();
+        }
+        return os.readyQueue == null ? 0 : os.readyQueue.size();
+    }
+
+    public long getContextSwitches() {
+        long switches = 0;
+        if (os.jobQueue != null) {
+            for (int i = 0; i < os.jobQueue.size(); i++) {
+                switches += os.jobQueue.get(i).contextSwitches;
+            }
+        }
+        return switches;
+    }
+
+    public void requestCheckpoint() {
+        if (os.checkpointPath == null) {
+            throw new IllegalStateException("Checkpoints are disabled");
+        }
+        os.checkpointRequested = true;
+    }
+
+    // Returns the sum of the per-opcode counts of every CPU.
+    private long[] opcodeCounts() {
+        long[] counts = new long[64];
+        for (ExecutionCounters counters : counters()) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += counters.opcodeCounts[i];
+            }
+        }
+        return counts;
+    }
+
+    // Prints the totals of the batch, its opcode mix, and the instructions, CPU time, and memory accesses of every finished job.
+    void printReport() {
+        System.out.printf("Metrics: %d instructions in %d cycles (%.3f cycles/instruction, %d block cycles), %.1f ns/instruction, %d memory reads, %d memory writes%n",
+            getInstructionsExecuted(), getCycles(), getCyclesPerInstruction(), getBlockCycles(), getNanosPerInstruction(), getMemoryReads(), getMemoryWrites());
+        long instructions = Math.max(getInstructionsExecuted(), 1);
+        StringBuilder mix = new StringBuilder("Opcode mix:");
+        for (Map.Entry<String, Long> entry : getOpcodeMix().entrySet()) {
+            mix.append(String.format(" %s %.1f%%", entry.getKey(), 100.0 * entry.getValue() / instructions));
+        }
+        System.out.println(mix);
+        if (os.engine == ExecutionEngine.TIERED) {
+            System.out.printf("Tiered compiler: %d blocks compiled, %d refused by the JVM%n", getCompiledBlocks(), getCompileFailures());
+        }
+        System.out.printf("%8s %14s %14s %12s %12s%n", "job", "instructions", "cpu (us)", "reads", "writes");
+        for (ProcessControlBlock pcb : os.jobQueue) {
+            if (pcb.terminated) {
+                System.out.printf("%8d %14d %14.1f %12d %12d%n", pcb.jobId, pcb.instructionsExecuted, pcb.cpuTime / 1e3, pcb.memoryReads, pcb.memoryWrites);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package vm2024;
+
+import java.util.Map;
+
+// Management interface of the OS, which exposes the execution counters of its CPUs and the state of its batch live over JMX.
+// The OS registers it as "vm2024:type=OperatingSystem,id=<n>" while the driver runs with metrics enabled.
+public interface OperatingSystemMetricsMXBean {
+
+    // Number of instructions that the CPUs have retired.
+    long getInstructionsExecuted();
+
+    // Number of data path cycles that the CPUs have run. A cycle that runs a compiled block retires several instructions.
+    long getCycles();
+
+    // Number of cycles that ran a compiled block of the tiered engine.
+    long getBlockCycles();
+
+    // Number of blocks that the tiered engine compiled, and blocks whose generated class the JVM refused, which run on the interpreter instead.
+    long getCompiledBlocks();
+    long getCompileFailures();
+
+    // Data path cycles per retired instruction.
+    double getCyclesPerInstruction();
+
+    // Average time that a retired instruction took, from the CPU time of the processes.
+    double getNanosPerInstruction();
+
+    // Number of words that the programs read from and wrote to memory.
+    long getMemoryReads();
+    long getMemoryWrites();
+
+    // Number of retired instructions of every opcode that has run, by mnemonic.
+    Map<String, Long> getOpcodeMix();
+
+    // Number of jobs in the batch, finished jobs, and processes in the ready queue.
+    int getJobs();
+    int getFinishedJobs();
+    int getReadyProcesses();
+
+    // Number of context switches of all processes.
+    long getContextSwitches();
+
+    // Requests a checkpoint, which the single-core driver writes to its snapshot path between the next two instructions.
+    // Fails if the OS was not started with a snapshot path.
+    void requestCheckpoint();
+}
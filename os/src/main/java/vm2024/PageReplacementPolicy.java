@@ -0,0 +1,22 @@
+package vm2024;
+
+// Interface for the page replacement policies of demand-paged memory.
+// A policy follows the frames of physical memory as pages are loaded into them and accessed, and picks the frame to evict when a page fault finds no free frame.
+// The pager only calls the policy while holding the MMU's lock.
+interface PageReplacementPolicy {
+
+    // Starts following a physical memory of the given number of frames, forgetting any frames followed before.
+    void initialize(int frames);
+
+    // Called when a page has been loaded into a frame.
+    void loaded(int frame);
+
+    // Called on every access to a frame.
+    void referenced(int frame);
+
+    // Called when a frame has been freed, because the process that owned it terminated.
+    void released(int frame);
+
+    // Returns the frame whose page is evicted to make room for another, when every frame is in use.
+    int victim();
+}
@@ -0,0 +1,23 @@
+package vm2024;
+
+import java.util.ArrayList;
+
+// Priority policy, which runs the process with the highest priority from its "job" line first.
+// Processes with the same priority run in the order they were admitted.
+class PriorityPolicy implements SchedulingPolicy {
+
+    public int select(ArrayList<ProcessControlBlock> readyQueue) {
+        int best = -1;
+        for (int i = 0; i < readyQueue.size(); i++) {
+            ProcessControlBlock pcb = readyQueue.get(i);
+            if (pcb.ready && (best < 0 || pcb.priority > readyQueue.get(best).priority)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public int quantum() {
+        return 0;
+    }
+}
@@ -0,0 +1,99 @@
+package vm2024;
+
+// A class for creating Process Control Block objects, containing relevant state variables for the program.
+class ProcessControlBlock {
+    // Job id and priority, from the "job" line of the program.
+    public int jobId;
+    public int priority;
+
+    public int programCounter;
+    
+    // The base register of the program in its logical space, used for data addressing in the CPU.
+    public int dataMemoryOffset;
+    
+    // Number of the process's page table in memory.
+    public int pageNumber;
+    
+    public int instructionCount;
+
+    // Word offset of the data section in the program, and the sizes of its input, output, and temp buffers, from the "data" line of the program.
+    public int dataOffset;
+    public int inputBufferSize;
+    public int outputBufferSize;
+    public int tempBufferSize;
+
+    // Location of the job's words on the virtual disc, and the number of words.
+    public int discAddress;
+    public int wordCount;
+    
+    // Boolean to represent whether the program is ready for execution or not.
+    public boolean ready;
+
+    // Boolean to represent whether the program has finished.
+    public boolean terminated;
+
+    // Boolean to represent whether the program is waiting for its IO request to complete, and the request itself: the IO opcode, the register, and the logical address to transfer.
+    public boolean waiting;
+    public int ioOpcode;
+    public int ioRegister;
+    public int ioAddress;
+    // Whether the DMA channel has carried out the request, while the process waits for the kernel to service its interrupt.
+    public boolean ioCompleted;
+    // Number of IO requests that the process has made through the DMA channel.
+    public int ioRequests;
+    // The registers and the words of the logical space of the process when it terminated, when the OS captures the final state of processes.
+    public int[] finalRegisters;
+    public int[] finalMemory;
+
+    // Number of superinstructions and of instructions with a folded read that the load-time optimizer made of the program.
+    public int superinstructions;
+    public int foldedReads;
+
+    // Number of page faults of the process, and of its pages that were evicted, when memory is demand-paged.
+    public long pageFaults;
+    public long pageEvictions;
+    // The virtual thread that runs the process in virtual-thread mode, until it terminates.
+    public Thread thread;
+
+    // Number of instructions that the process has retired, and the words it read from and wrote to memory when the CPUs keep execution counters.
+    public long instructionsExecuted;
+    public long memoryReads;
+    public long memoryWrites;
+
+    // The registers of the process, saved on a context switch and restored when the process is dispatched again.
+    public int[] registers = new int[16];
+
+    // Counters of the process's accesses to the instruction and data cache simulators, when they are enabled.
+    public long[] instructionCacheCounters;
+    public long[] dataCacheCounters;
+
+    // Scheduling statistics in nanoseconds: when the job entered the job queue and finished, the time it ran on a CPU, and the number and time of its context switches.
+    public long arrivalTime;
+    public long completionTime;
+    public long cpuTime;
+    public int contextSwitches;
+    public long contextSwitchTime;
+
+    // Returns the time from entering the job queue until finishing.
+    public long getTurnaroundTime() {
+        return completionTime - arrivalTime;
+    }
+
+    // Returns the time that the job spent waiting, which is its turnaround time without the time it ran on a CPU.
+    public long getWaitingTime() {
+        return getTurnaroundTime() - cpuTime;
+    }
+
+    // The pre-decoded instruction section of the program, built once by the long-term scheduler.
+    // With code sharing, jobs of the same program share it until one of them writes into its code region.
+    public InstructionCache instructions;
+
+    // Invalidates a pre-decoded instruction after the program has written over it.
+    // A shared instruction section is copied first, so the write only changes the instructions of this process.
+    public void invalidateInstruction(int i) {
+        if (instructions.isShared()) {
+            instructions = instructions.copy();
+        }
+        instructions.invalidate(i);
+    }
+}
@@ -0,0 +1,73 @@
+package vm2024;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// A class for the binary program image format, and the assembler that converts program files into it.
+// An image starts with a file header (magic number, version, and number of jobs), followed by one record per job.
+// Each job record has a header with the job id, priority, instruction count, data offset, the sizes of the input/output/temp buffers, and the number of words, followed by the words themselves.
+// All values are 32-bit big-endian integers, so the loader can map the image and hand the words straight to the MMU.
+class ProgramImage {
+
+    // Magic number at the start of every image, the characters "VM24".
+    static final int MAGIC = 0x564D3234;
+    static final int VERSION = 1;
+
+    // Sizes of the headers in bytes.
+    static final int FILE_HEADER_SIZE = 12;
+    static final int JOB_HEADER_SIZE = 32;
+
+    // Returns whether the file at the path starts with the image magic number.
+    static boolean isImage(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+
+    // The assembler method, which converts a program file into a binary image.
+    // The program file is read by the OS loader, then the PCB of every job becomes a job header, and its words on the virtual disc follow it.
+    static void assemble(String programPath, String imagePath) throws IOException {
+        OperatingSystem os = new OperatingSystem();
+        os.boot();
+        os.loader(programPath);
+
+        try (FileChannel outputPort = FileChannel.open(Paths.get(imagePath), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer fileHeader = ByteBuffer.allocate(FILE_HEADER_SIZE);
+            fileHeader.putInt(MAGIC).putInt(VERSION).putInt(os.jobQueue.size()).flip();
+            write(outputPort, fileHeader);
+
+            for (ProcessControlBlock job : os.jobQueue) {
+                ByteBuffer record = ByteBuffer.allocate(JOB_HEADER_SIZE + job.wordCount * 4);
+                record.putInt(job.jobId).putInt(job.priority).putInt(job.instructionCount).putInt(job.dataOffset);
+                record.putInt(job.inputBufferSize).putInt(job.outputBufferSize).putInt(job.tempBufferSize).putInt(job.wordCount);
+                for (int i = 0; i < job.wordCount; i++) {
+                    record.putInt(os.IOC.read(job.discAddress + i));
+                }
+                record.flip();
+                write(outputPort, record);
+            }
+        }
+    }
+
+    // Writes the whole buffer to the channel.
+    private static void write(FileChannel outputPort, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            outputPort.write(buffer);
+        }
+    }
+
+    // Command line entry point for the assembler: ProgramImage <program file> <image file>
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ProgramImage <program file> <image file>");
+            System.exit(2);
+        }
+        assemble(args[0], args[1]);
+    }
+}
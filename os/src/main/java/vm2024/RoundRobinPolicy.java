@@ -0,0 +1,30 @@
+package vm2024;
+
+import java.util.ArrayList;
+
+// Round-Robin policy, which runs the processes in turn for a fixed quantum of instructions each.
+// A preempted process goes to the back of the ready queue.
+class RoundRobinPolicy implements SchedulingPolicy {
+
+    private int quantum;
+
+    RoundRobinPolicy(int quantum) {
+        if (quantum <= 0) {
+            throw new IllegalArgumentException("Quantum must be positive: " + quantum);
+        }
+        this.quantum = quantum;
+    }
+
+    public int select(ArrayList<ProcessControlBlock> readyQueue) {
+        for (int i = 0; i < readyQueue.size(); i++) {
+            if (readyQueue.get(i).ready) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int quantum() {
+        return quantum;
+    }
+}
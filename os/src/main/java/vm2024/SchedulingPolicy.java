@@ -0,0 +1,14 @@
+package vm2024;
+
+import java.util.ArrayList;
+
+// Interface for the policies of the short-term scheduler.
+// A policy picks the next process to dispatch from the ready queue, and sets how long a process may run before it is preempted.
+interface SchedulingPolicy {
+
+    // Returns the index of the next ready process in the ready queue, or -1 if no process is ready.
+    int select(ArrayList<ProcessControlBlock> readyQueue);
+
+    // Returns the number of instructions a process may run before it is preempted, or 0 to run it until it finishes.
+    int quantum();
+}
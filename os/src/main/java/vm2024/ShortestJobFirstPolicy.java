@@ -0,0 +1,23 @@
+package vm2024;
+
+import java.util.ArrayList;
+
+// Shortest-Job-First policy, which runs the process with the fewest instructions first.
+// Processes with the same number of instructions run in the order they were admitted.
+class ShortestJobFirstPolicy implements SchedulingPolicy {
+
+    public int select(ArrayList<ProcessControlBlock> readyQueue) {
+        int best = -1;
+        for (int i = 0; i < readyQueue.size(); i++) {
+            ProcessControlBlock pcb = readyQueue.get(i);
+            if (pcb.ready && (best < 0 || pcb.instructionCount < readyQueue.get(best).instructionCount)) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public int quantum() {
+        return 0;
+    }
+}
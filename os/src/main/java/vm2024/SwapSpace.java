@@ -0,0 +1,113 @@
+package vm2024;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// A class for the swap area of demand-paged memory, a file of page-sized slots that dirty pages are written back to.
+// Slots are handed out when a page is first written back and reused once its process has terminated.
+// The swap file is a temporary file deleted on close when no path is given.
+class SwapSpace implements Closeable {
+
+    // Size of a slot in bytes, which holds the words of one frame.
+    static final int SLOT_SIZE = MemoryManagementUnit.FRAME_SIZE * 4;
+
+    private FileChannel file;
+    // Buffer that a page passes through on its way to and from the file.
+    private ByteBuffer buffer;
+
+    // Stack of the slots that are free to reuse, and the number of slots in the file.
+    private int[] freeSlots;
+    private int freeCount;
+    private int slotCount;
+
+    // Number of pages read from and written to the file.
+    private long reads;
+    private long writes;
+
+    // Constructor that opens the swap file at the given path, or a temporary one if the path is null.
+    SwapSpace(Path path) throws IOException {
+        if (path == null) {
+            path = Files.createTempFile("vm2024-swap", ".bin");
+            file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        } else {
+            file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        buffer = ByteBuffer.allocateDirect(SLOT_SIZE);
+        freeSlots = new int[16];
+    }
+
+    // Returns a free slot, growing the file when there is none.
+    int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        return slotCount++;
+    }
+
+    // Returns a slot to the free stack.
+    void free(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    // Writes the words of a frame, starting at the given offset of memory, to a slot.
+    void write(int slot, int[] memory, int offset) {
+        buffer.clear();
+        buffer.asIntBuffer().put(memory, offset, MemoryManagementUnit.FRAME_SIZE);
+        try {
+            long position = (long) slot * SLOT_SIZE;
+            while (buffer.hasRemaining()) {
+                position += file.write(buffer, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write slot " + slot + " of the swap file", e);
+        }
+        writes++;
+    }
+
+    // Reads the words of a slot into a frame, starting at the given offset of memory.
+    void read(int slot, int[] memory, int offset) {
+        buffer.clear();
+        try {
+            long position = (long) slot * SLOT_SIZE;
+            while (buffer.hasRemaining()) {
+                int read = file.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Slot " + slot + " is past the end of the swap file");
+                }
+                position += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read slot " + slot + " of the swap file", e);
+        }
+        buffer.flip();
+        IntBuffer words = buffer.asIntBuffer();
+        words.get(memory, offset, MemoryManagementUnit.FRAME_SIZE);
+        reads++;
+    }
+
+    // Returns the number of pages read from the swap file.
+    long getReads() {
+        return reads;
+    }
+
+    // Returns the number of pages written to the swap file.
+    long getWrites() {
+        return writes;
+    }
+
+    // Closes the swap file, which deletes it if it is temporary.
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,166 @@
+package vm2024;
+
+// A class for translating pre-decoded instructions into handlers for the threaded-code engine.
+// Every instruction is translated once, so running a program is a walk over its array of handlers, without the opcode switch or the operand unpacking of execute().
+// Each handler carries out exactly the same operation as the matching case of CentralProcessingUnit.execute().
+class ThreadedCode {
+
+    // Translates the instructions of a process into handlers, using the process's base register to resolve effective addresses.
+    static void translate(InstructionCache instructions, int dataMemoryOffset) {
+        instructions.enableHandlers();
+        // Entries that have not been decoded yet get their handler when they are first fetched.
+        for (int i = 0; i < instructions.size(); i++) {
+            if (instructions.get(i) != 0) {
+                instructions.setHandler(i, translate(instructions.get(i), dataMemoryOffset));
+            }
+        }
+    }
+
+    // Translates one pre-decoded instruction into a handler.
+    static InstructionHandler translate(long instruction, int dataMemoryOffset) {
+        // Unpacks the operands of the instruction, and resolves the effective addresses of the second and third operands, as execute() would.
+        int op1 = InstructionCache.first(instruction);
+        int op2 = InstructionCache.second(instruction);
+        int op3 = InstructionCache.third(instruction);
+        int address1 = dataMemoryOffset + (op1 >>> 2);
+        int address2 = dataMemoryOffset + (op2 >>> 2);
+        int address3 = dataMemoryOffset + (op3 >>> 2);
+
+        switch(InstructionCache.opcode(instruction)) {
+
+            // RD - Reads data at address or register.
+            case 0:
+            if (op3==0) {
+                return cpu -> cpu.registers[op1] = cpu.registers[op2];
+            }
+            return cpu -> cpu.registers[op1] = cpu.read(address3);
+
+            // WR - Writes data to address or register.
+            // ST - Stores data to address or register.
+            case 1:
+            case 2:
+            if (op3==0) {
+                return cpu -> cpu.registers[op2] = cpu.registers[op1];
+            }
+            return cpu -> cpu.write(address3, cpu.registers[op1]);
+
+            // LW - Loads data from register or address into other register.
+            case 3:
+            if (op3==0) {
+                return cpu -> cpu.registers[op1] = cpu.registers[op2];
+            }
+            return cpu -> cpu.registers[op1] = cpu.read(address3);
+
+            // MOV - Transfers data from one register to another.
+            case 4:
+            return cpu -> cpu.registers[op1] = cpu.registers[op2];
+
+            // ADD - Adds two registers into other the register.
+            case 5:
+            return cpu -> cpu.registers[op1] = cpu.registers[op2] + cpu.registers[op3];
+
+            // SUB - Subtracts two registers into other the register.
+            case 6:
+            return cpu -> cpu.registers[op1] = cpu.registers[op2] - cpu.registers[op3];
+
+            // MUL - Multiplies two registers into other the register.
+            case 7:
+            return cpu -> cpu.registers[op1] = cpu.registers[op2] * cpu.registers[op3];
+
+            // DIV - Divides two registers into other the register.
+            case 8:
+            return cpu -> cpu.registers[op1] = cpu.registers[op2] / cpu.registers[op3];
+
+            // AND - Stores the AND of two registers into the other.
+            case 9:
+            return cpu -> cpu.registers[op1] = (cpu.registers[op2] == cpu.registers[op3]) ? 1 : 0;
+
+            // OR - Stores the OR of two registers into the other.
+            case 10:
+            return cpu -> cpu.registers[op1] = (cpu.registers[op2] == 1 || cpu.registers[op3] == 1) ? 1 : 0;
+
+            // MOVI - Copy the data from address into register.
+            // LDI - Same as MOVI
+            case 11:
+            case 15:
+            return cpu -> cpu.registers[op1] = cpu.read(address2);
+
+            // ADDI - Add register by data from address.
+            case 12:
+            return cpu -> cpu.registers[op1] += cpu.read(address2);
+
+            // MULI - Multiply register by data from address.
+            case 13:
+            return cpu -> cpu.registers[op1] = cpu.registers[op1] * cpu.read(address2);
+
+            // DIVI - Divide register by data from address.
+            case 14:
+            return cpu -> cpu.registers[op1] = cpu.registers[op1] / cpu.read(address2);
+
+            // SLT - Set register as 1 or 0 on register 2 < register 3.
+            case 16:
+            return cpu -> cpu.registers[op1] = (cpu.registers[op2] < cpu.registers[op3]) ? 1 : 0;
+
+            // SLTI - Set register as 1 or 0 on register 2 < addressed data.
+            case 17:
+            return cpu -> cpu.registers[op1] = (cpu.registers[op2] < cpu.read(address3)) ? 1 : 0;
+
+            // HTL - Stops the program.
+            case 18:
+            return cpu -> cpu.process.programCounter = cpu.process.instructionCount;
+
+            // JMP - Jump PC to addressed
+            case 20:
+            return cpu -> cpu.process.programCounter = cpu.read(address1);
+
+            // BEQ - Jumps to address if registers are equal.
+            case 21:
+            return cpu -> {
+                if (cpu.registers[op1] == cpu.registers[op2])
+                    cpu.process.programCounter = cpu.read(address3);
+            };
+
+            // BNE - Jumps to address if registers are unequal.
+            case 22:
+            return cpu -> {
+                if (cpu.registers[op1] != cpu.registers[op2])
+                    cpu.process.programCounter = cpu.read(address3);
+            };
+
+            // BEZ - Jumps to address if register is 0.
+            case 23:
+            return cpu -> {
+                if (cpu.registers[op1] == 0)
+                    cpu.process.programCounter = cpu.read(address2);
+            };
+
+            // BNZ - Jumps to address if register is not 0.
+            case 24:
+            return cpu -> {
+                if (cpu.registers[op1] != 0)
+                    cpu.process.programCounter = cpu.read(address2);
+            };
+
+            // BGZ - Jumps to address if register is positive.
+            case 25:
+            return cpu -> {
+                if (cpu.registers[op1] > 0)
+                    cpu.process.programCounter = cpu.read(address2);
+            };
+
+            // BLZ - Jumps to address if register is negative.
+            case 26:
+            return cpu -> {
+                if (cpu.registers[op1] < 0)
+                    cpu.process.programCounter = cpu.read(address2);
+            };
+
+            // NOP - Move to next instruction, as do unknown opcodes.
+            default:
+            return NOP;
+        }
+    }
+
+    // Shared handler for NOP and unknown opcodes.
+    static final InstructionHandler NOP = cpu -> { };
+}
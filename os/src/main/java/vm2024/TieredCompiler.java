@@ -0,0 +1,599 @@
+package vm2024;
+
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// A class for the tiered compiler, which compiles hot basic blocks of a program into hidden classes.
+// In tiered mode the CPU counts how often each instruction starts a cycle. Once an instruction is hot, the block from it up to the next BEQ/BNE/BEZ/BNZ/BGZ/BLZ/JMP/HLT is compiled, and later cycles that start there run the compiled block instead.
+// The compiled code works directly on the CPU's register file and memory, so HotSpot can optimize the guest loops like any other Java code.
+// Blocks that cannot be compiled exactly, such as ones with unknown opcodes or stores into the code region, are left to the interpreter.
+class TieredCompiler {
+
+    // Number of times an instruction must start a cycle before the block starting there is compiled.
+    static final int HOT_THRESHOLD = 1000;
+    // Longest block that is compiled, which keeps the generated methods well under the JVM's size limit.
+    static final int MAX_BLOCK_LENGTH = 256;
+
+    // Lookup for defining the hidden classes in the same package as the CPU, so the compiled code can use its package-private members.
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    // Internal names of the classes that the generated code refers to, which include the package of the VM.
+    private static final String CPU = internalName(CentralProcessingUnit.class);
+    private static final String PCB = internalName(ProcessControlBlock.class);
+    private static final String BLOCK = internalName(CompiledBlock.class);
+
+    // Compiles the block starting at the index, and saves it in the instruction cache.
+    // Marks the start as not compilable when the block cannot be compiled exactly.
+    // Returns false if the JVM refused the generated class, in which case the block also falls back to the interpreter, so the caller can count the failure.
+    // Any other error means the generated class is broken, and is not hidden behind the interpreter.
+    static boolean compile(InstructionCache instructions, int start, int dataMemoryOffset) {
+        int end = blockEnd(instructions, start, dataMemoryOffset);
+        if (end < 0) {
+            instructions.setBlock(start, null, -1);
+            return true;
+        }
+        byte[] classFile = generate(instructions, start, end, dataMemoryOffset);
+        Class<?> blockClass;
+        try {
+            blockClass = LOOKUP.defineHiddenClass(classFile, true).lookupClass();
+        } catch (IllegalAccessException | LinkageError e) {
+            instructions.setBlock(start, null, -1);
+            return false;
+        }
+        try {
+            CompiledBlock block = (CompiledBlock) blockClass.getDeclaredConstructor().newInstance();
+            instructions.setBlock(start, block, end - start + 1);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not instantiate the compiled block at " + start, e);
+        }
+        return true;
+    }
+
+    // Finds the index of the last instruction of the block starting at the index, or -1 if the block cannot be compiled.
+    static int blockEnd(InstructionCache instructions, int start, int dataMemoryOffset) {
+        int end = start;
+        while (true) {
+            long instruction = instructions.get(end);
+            int opcode = InstructionCache.opcode(instruction);
+
+            // Invalidated entries and unknown opcodes are left to the interpreter.
+            if (instruction == 0 || opcode > 26) {
+                return -1;
+            }
+
+            // Stores into the code region must invalidate the pre-decoded instructions, which only the interpreter does.
+            if ((opcode == 1 || opcode == 2) && InstructionCache.third(instruction) != 0
+                && dataMemoryOffset + (InstructionCache.third(instruction) >>> 2) < instructions.size()) {
+                return -1;
+            }
+
+            // IO instructions are left to the interpreter, which hands them to the DMA channel when it is enabled, so the block ends before them.
+            if (InstructionCache.isIO(instruction)) {
+                return end == start ? -1 : end - 1;
+            }
+
+            if (isTerminator(opcode) || end == instructions.size() - 1) {
+                return end;
+            }
+            if (end - start + 1 == MAX_BLOCK_LENGTH) {
+                return end;
+            }
+            end++;
+        }
+    }
+
+    // Returns the internal name of a class, as it is written in a class file.
+    private static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    // Returns whether an instruction can throw: the ones that access memory, which can be outside the logical space of the process, and the divisions.
+    static boolean canFault(long instruction) {
+        switch(InstructionCache.opcode(instruction)) {
+            // RD, WR, ST, LW only access memory with an address.
+            case 0:
+            case 1:
+            case 2:
+            case 3:
+            return InstructionCache.third(instruction) != 0;
+
+            // MOV, ADD, SUB, MUL, AND, OR, SLT, HLT, NOP only use registers.
+            case 4:
+            case 5:
+            case 6:
+            case 7:
+            case 9:
+            case 10:
+            case 16:
+            case 18:
+            case 19:
+            return false;
+
+            // DIV, and the instructions that read an address.
+            default:
+            return true;
+        }
+    }
+
+    // Returns whether the opcode ends a basic block: HLT, JMP, and the conditional branches.
+    static boolean isTerminator(int opcode) {
+        return opcode == 18 || (opcode >= 20 && opcode <= 26);
+    }
+
+    // Bytecode opcodes used by the generated code.
+    private static final int ICONST_0 = 0x03;
+    private static final int ICONST_1 = 0x04;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int ALOAD_0 = 0x2A;
+    private static final int ALOAD_1 = 0x2B;
+    private static final int ALOAD_2 = 0x2C;
+    private static final int ALOAD_3 = 0x2D;
+    private static final int ASTORE_2 = 0x4D;
+    private static final int ASTORE_3 = 0x4E;
+    private static final int IALOAD = 0x2E;
+    private static final int IASTORE = 0x4F;
+    private static final int DUP = 0x59;
+    private static final int IADD = 0x60;
+    private static final int ISUB = 0x64;
+    private static final int IMUL = 0x68;
+    private static final int IDIV = 0x6C;
+    private static final int IFEQ = 0x99;
+    private static final int IFNE = 0x9A;
+    private static final int IFGE = 0x9C;
+    private static final int IFLE = 0x9E;
+    private static final int IF_ICMPEQ = 0x9F;
+    private static final int IF_ICMPNE = 0xA0;
+    private static final int IF_ICMPGE = 0xA2;
+    private static final int GOTO = 0xA7;
+    private static final int RETURN = 0xB1;
+    private static final int GETFIELD = 0xB4;
+    private static final int PUTFIELD = 0xB5;
+    private static final int INVOKEVIRTUAL = 0xB6;
+    private static final int INVOKESPECIAL = 0xB7;
+
+    // Generates the class file of a compiled block.
+    // The class implements CompiledBlock, and its execute method holds the code of every instruction of the block in order.
+    // Class file version 49 is used so the code does not need stack map frames.
+    static byte[] generate(InstructionCache instructions, int start, int end, int dataMemoryOffset) {
+        ClassFile classFile = new ClassFile();
+        Code code = new Code(classFile);
+
+        // Locals: 0 this, 1 cpu, 2 cpu.registers, 3 cpu.process.
+        code.op(ALOAD_1);
+        code.op(GETFIELD);
+        code.u2(classFile.field(CPU, "registers", "[I"));
+        code.op(ASTORE_2);
+        code.op(ALOAD_1);
+        code.op(GETFIELD);
+        code.u2(classFile.field(CPU, "process", "L" + PCB + ";"));
+        code.op(ASTORE_3);
+
+        // Number of instructions that the PC of the process has been moved past so far.
+        int spilled = 0;
+        for (int i = start; i <= end; i++) {
+            long instruction = instructions.get(i);
+            int opcode = InstructionCache.opcode(instruction);
+
+            // The driver moves the PC past every instruction before the terminator, so the terminator starts from the same PC as it would when interpreted.
+            // The PC is also moved up to every instruction that can fault, so a fault in the middle of the block leaves it on the faulting instruction, as the interpreter does.
+            if ((isTerminator(opcode) || canFault(instruction)) && i - start > spilled) {
+                addToProgramCounter(code, i - start - spilled);
+                spilled = i - start;
+            }
+
+            // Loads the instruction register, as the fetch step would.
+            code.op(ALOAD_2);
+            code.pushInt(2);
+            code.pushInt(instructions.word(i));
+            code.op(IASTORE);
+
+            instruction(code, instruction, dataMemoryOffset);
+        }
+
+        // A block that ends without a terminator moves the PC past its last instruction but one, the driver moves it past the last.
+        if (!isTerminator(InstructionCache.opcode(instructions.get(end))) && end - start > spilled) {
+            addToProgramCounter(code, end - start - spilled);
+        }
+        code.op(RETURN);
+
+        return classFile.toBytes(code);
+    }
+
+    // Generates the code of one instruction, the same operation as its case in CentralProcessingUnit.execute().
+    private static void instruction(Code code, long instruction, int dataMemoryOffset) {
+        int op1 = InstructionCache.first(instruction);
+        int op2 = InstructionCache.second(instruction);
+        int op3 = InstructionCache.third(instruction);
+        int address1 = dataMemoryOffset + (op1 >>> 2);
+        int address2 = dataMemoryOffset + (op2 >>> 2);
+        int address3 = dataMemoryOffset + (op3 >>> 2);
+
+        switch(InstructionCache.opcode(instruction)) {
+
+            // RD, LW - Reads data at address or register.
+            case 0:
+            case 3:
+            code.op(ALOAD_2);
+            code.pushInt(op1);
+            if (op3==0) {
+                code.register(op2);
+            } else {
+                code.read(address3);
+            }
+            code.op(IASTORE);
+            break;
+
+            // WR, ST - Writes data to address or register.
+            case 1:
+            case 2:
+            if (op3==0) {
+                code.op(ALOAD_2);
+                code.pushInt(op2);
+                code.register(op1);
+                code.op(IASTORE);
+            } else {
+                code.op(ALOAD_1);
+                code.pushInt(address3);
+                code.register(op1);
+                code.op(INVOKEVIRTUAL);
+                code.u2(code.classFile.method(CPU, "write", "(II)V"));
+            }
+            break;
+
+            // MOV - Transfers data from one register to another.
+            case 4:
+            code.op(ALOAD_2);
+            code.pushInt(op1);
+            code.register(op2);
+            code.op(IASTORE);
+            break;
+
+            // ADD, SUB, MUL, DIV - Arithmetic on two registers into the other register.
+            case 5:
+            case 6:
+            case 7:
+            case 8:
+            code.op(ALOAD_2);
+            code.pushInt(op1);
+            code.register(op2);
+            code.register(op3);
+            code.op(new int[] {IADD, ISUB, IMUL, IDIV}[InstructionCache.opcode(instruction) - 5]);
+            code.op(IASTORE);
+            break;
+
+            // AND - Stores the AND of two registers into the other.
+            case 9:
+            code.op(ALOAD_2);
+            code.pushInt(op1);
+            code.register(op2);
+            code.register(op3);
+            code.condition(IF_ICMPNE);
+            code.op(IASTORE);
+            break;
+
+            // OR - Stores the OR of two registers into the other.
+            case 10:
+            code.op(ALOAD_2);
+            code.pushInt(op1);
+            code.register(op2);
+            code.op(ICONST_1);
+            int first = code.jump(IF_ICMPEQ);
+            code.register(op3);
+            code.op(ICONST_1);
+            int second = code.jump(IF_ICMPEQ);
+            code.op(ICONST_0);
+            int done = code.jump(GOTO);
+            code.patch(first);
+            code.patch(second);
+            code.op(ICONST_1);
+            code.patch(done);
+            code.op(IASTORE);
+            break;
+
+            // MOVI, LDI - Copy the data from address into register.
+            case 11:
+            case 15:
+            code.op(ALOAD_2);
+            code.pushInt(op1);
+            code.read(address2);
+            code.op(IASTORE);
+            break;
+
+            // ADDI, MULI, DIVI - Arithmetic on the register and the data from address.
+            case 12:
+            case 13:
+            case 14:
+            code.op(ALOAD_2);
+            code.pushInt(op1);
+            code.register(op1);
+            code.read(address2);
+            code.op(new int[] {IADD, IMUL, IDIV}[InstructionCache.opcode(instruction) - 12]);
+            code.op(IASTORE);
+            break;
+
+            // SLT - Set register as 1 or 0 on register 2 < register 3.
+            case 16:
+            code.op(ALOAD_2);
+            code.pushInt(op1);
+            code.register(op2);
+            code.register(op3);
+            code.condition(IF_ICMPGE);
+            code.op(IASTORE);
+            break;
+
+            // SLTI - Set register as 1 or 0 on register 2 < addressed data.
+            case 17:
+            code.op(ALOAD_2);
+            code.pushInt(op1);
+            code.register(op2);
+            code.read(address3);
+            code.condition(IF_ICMPGE);
+            code.op(IASTORE);
+            break;
+
+            // HTL - Stops the program.
+            case 18:
+            code.op(ALOAD_3);
+            code.op(ALOAD_3);
+            code.op(GETFIELD);
+            code.u2(code.classFile.field(PCB, "instructionCount", "I"));
+            code.op(PUTFIELD);
+            code.u2(code.classFile.field(PCB, "programCounter", "I"));
+            break;
+
+            // NOP - Move to next instruction.
+            case 19:
+            break;
+
+            // JMP - Jump PC to addressed
+            case 20:
+            code.jumpTo(address1);
+            break;
+
+            // BEQ, BNE - Jumps to address if registers are equal or unequal.
+            case 21:
+            case 22:
+            code.register(op1);
+            code.register(op2);
+            int skip = code.jump(InstructionCache.opcode(instruction) == 21 ? IF_ICMPNE : IF_ICMPEQ);
+            code.jumpTo(address3);
+            code.patch(skip);
+            break;
+
+            // BEZ, BNZ, BGZ, BLZ - Jumps to address if register is 0, not 0, positive, or negative.
+            case 23:
+            case 24:
+            case 25:
+            case 26:
+            code.register(op1);
+            int notTaken = code.jump(new int[] {IFNE, IFEQ, IFLE, IFGE}[InstructionCache.opcode(instruction) - 23]);
+            code.jumpTo(address2);
+            code.patch(notTaken);
+            break;
+        }
+    }
+
+    // Generates the code that adds to the PC of the process.
+    private static void addToProgramCounter(Code code, int amount) {
+        int programCounter = code.classFile.field(PCB, "programCounter", "I");
+        code.op(ALOAD_3);
+        code.op(DUP);
+        code.op(GETFIELD);
+        code.u2(programCounter);
+        code.pushInt(amount);
+        code.op(IADD);
+        code.op(PUTFIELD);
+        code.u2(programCounter);
+    }
+
+    // A builder for the bytes of a method's code, and of the class file itself.
+    private static class Code {
+        ClassFile classFile;
+        byte[] bytes = new byte[256];
+        int length;
+
+        Code(ClassFile classFile) {
+            this.classFile = classFile;
+        }
+
+        void op(int opcode) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = (byte) opcode;
+        }
+
+        void u2(int value) {
+            op(value >>> 8);
+            op(value);
+        }
+
+        void write(byte[] values, int count) {
+            for (int i = 0; i < count; i++) {
+                op(values[i]);
+            }
+        }
+
+        // Pushes an int constant with the shortest instruction for it.
+        void pushInt(int value) {
+            if (value >= -1 && value <= 5) {
+                op(ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                op(BIPUSH);
+                op(value & 0xFF);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                op(SIPUSH);
+                u2(value & 0xFFFF);
+            } else {
+                op(LDC_W);
+                u2(classFile.integer(value));
+            }
+        }
+
+        // Pushes the value of a register.
+        void register(int register) {
+            op(ALOAD_2);
+            pushInt(register);
+            op(IALOAD);
+        }
+
+        // Pushes the word at a logical address, read through the CPU.
+        void read(int address) {
+            op(ALOAD_1);
+            pushInt(address);
+            op(INVOKEVIRTUAL);
+            u2(classFile.method(CPU, "read", "(I)I"));
+        }
+
+        // Sets the PC of the process to the word at a logical address.
+        void jumpTo(int address) {
+            op(ALOAD_3);
+            read(address);
+            op(PUTFIELD);
+            u2(classFile.field(PCB, "programCounter", "I"));
+        }
+
+        // Replaces the two values on the stack with 0 if the comparison jumps, and 1 if it does not.
+        void condition(int comparison) {
+            int isFalse = jump(comparison);
+            op(ICONST_1);
+            int done = jump(GOTO);
+            patch(isFalse);
+            op(ICONST_0);
+            patch(done);
+        }
+
+        // Writes a forward jump and returns its position, for patching once the target is known.
+        int jump(int opcode) {
+            int position = length;
+            op(opcode);
+            u2(0);
+            return position;
+        }
+
+        // Points a forward jump at the current position.
+        void patch(int position) {
+            int offset = length - position;
+            bytes[position + 1] = (byte) (offset >>> 8);
+            bytes[position + 2] = (byte) offset;
+        }
+    }
+
+    // A builder for the constant pool and the layout of the class file.
+    private static class ClassFile {
+        Code pool = new Code(this);
+        HashMap<String, Integer> entries = new HashMap<String, Integer>();
+        int count = 1;
+
+        private int entry(String key, byte[] bytes) {
+            Integer index = entries.get(key);
+            if (index == null) {
+                index = count++;
+                entries.put(key, index);
+                pool.write(bytes, bytes.length);
+            }
+            return index;
+        }
+
+        int utf8(String value) {
+            byte[] text = value.getBytes(StandardCharsets.UTF_8);
+            byte[] bytes = new byte[3 + text.length];
+            bytes[0] = 1;
+            bytes[1] = (byte) (text.length >>> 8);
+            bytes[2] = (byte) text.length;
+            System.arraycopy(text, 0, bytes, 3, text.length);
+            return entry("U" + value, bytes);
+        }
+
+        int integer(int value) {
+            return entry("I" + value, new byte[] {3, (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value});
+        }
+
+        int classRef(String name) {
+            int nameIndex = utf8(name);
+            return entry("C" + name, new byte[] {7, (byte) (nameIndex >>> 8), (byte) nameIndex});
+        }
+
+        int nameAndType(String name, String descriptor) {
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            return entry("N" + name + ":" + descriptor, new byte[] {12, (byte) (nameIndex >>> 8), (byte) nameIndex, (byte) (descriptorIndex >>> 8), (byte) descriptorIndex});
+        }
+
+        private int member(int tag, String owner, String name, String descriptor) {
+            int classIndex = classRef(owner);
+            int nameAndTypeIndex = nameAndType(name, descriptor);
+            return entry(tag + owner + "." + name + ":" + descriptor, new byte[] {(byte) tag, (byte) (classIndex >>> 8), (byte) classIndex, (byte) (nameAndTypeIndex >>> 8), (byte) nameAndTypeIndex});
+        }
+
+        int field(String owner, String name, String descriptor) {
+            return member(9, owner, name, descriptor);
+        }
+
+        int method(String owner, String name, String descriptor) {
+            return member(10, owner, name, descriptor);
+        }
+
+        // Lays out the class: a public constructor, and the execute method with the given code.
+        byte[] toBytes(Code execute) {
+            int thisClass = classRef(BLOCK + "$Generated");
+            int superClass = classRef("java/lang/Object");
+            int blockInterface = classRef(BLOCK);
+            int objectInit = method("java/lang/Object", "<init>", "()V");
+            int initName = utf8("<init>");
+            int initDescriptor = utf8("()V");
+            int executeName = utf8("execute");
+            int executeDescriptor = utf8("(L" + CPU + ";)V");
+            int codeName = utf8("Code");
+
+            Code init = new Code(this);
+            init.op(ALOAD_0);
+            init.op(INVOKESPECIAL);
+            init.u2(objectInit);
+            init.op(RETURN);
+
+            Code out = new Code(this);
+            out.u2(0xCAFE);
+            out.u2(0xBABE);
+            out.u2(0);
+            out.u2(49);
+            out.u2(count);
+            out.write(pool.bytes, pool.length);
+            // ACC_FINAL | ACC_SUPER
+            out.u2(0x0030);
+            out.u2(thisClass);
+            out.u2(superClass);
+            out.u2(1);
+            out.u2(blockInterface);
+            out.u2(0);
+            out.u2(2);
+            method(out, initName, initDescriptor, codeName, init, 1, 1);
+            method(out, executeName, executeDescriptor, codeName, execute, 8, 4);
+            out.u2(0);
+            return Arrays.copyOf(out.bytes, out.length);
+        }
+
+        // Writes a public method with its Code attribute.
+        private void method(Code out, int name, int descriptor, int codeName, Code code, int maxStack, int maxLocals) {
+            out.u2(0x0001);
+            out.u2(name);
+            out.u2(descriptor);
+            out.u2(1);
+            out.u2(codeName);
+            int attributeLength = 12 + code.length;
+            out.u2(attributeLength >>> 16);
+            out.u2(attributeLength & 0xFFFF);
+            out.u2(maxStack);
+            out.u2(maxLocals);
+            out.u2(code.length >>> 16);
+            out.u2(code.length & 0xFFFF);
+            out.write(code.bytes, code.length);
+            out.u2(0);
+            out.u2(0);
+        }
+    }
+}
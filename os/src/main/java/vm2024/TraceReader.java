@@ -0,0 +1,48 @@
+package vm2024;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// A class for reading the binary trace files of the execution tracer, and printing every record next to the disassembly of its instruction.
+class TraceReader {
+
+    // Prints a trace file, oldest record first.
+    static void print(String path) throws IOException {
+        ByteBuffer trace = ByteBuffer.wrap(Files.readAllBytes(Paths.get(path)));
+        if (trace.remaining() < ExecutionTracer.HEADER_SIZE || trace.getInt() != ExecutionTracer.MAGIC) {
+            throw new IOException(path + " is not a trace file");
+        }
+        int version = trace.getInt();
+        if (version != ExecutionTracer.VERSION) {
+            throw new IOException("Unsupported trace version " + version + " in " + path);
+        }
+        int cpu = trace.getInt();
+        int size = trace.getInt();
+
+        System.out.printf("Trace of CPU %d: %d instructions, oldest first%n", cpu, size);
+        System.out.printf("%8s %6s  %-10s  %-28s %s%n", "job", "pc", "word", "instruction", "register");
+        for (int r = 0; r < size; r++) {
+            int jobId = trace.getInt();
+            int pc = trace.getInt();
+            int word = trace.getInt();
+            int register = trace.getInt();
+            int oldValue = trace.getInt();
+            int newValue = trace.getInt();
+            String change = register == ExecutionTracer.NO_REGISTER ? "" : String.format("r%d: %d -> %d", register, oldValue, newValue);
+            System.out.printf("%8d %6d  0x%08X  %-28s %s%n", jobId, pc, word, Disassembler.disassemble(word), change);
+        }
+    }
+
+    // Command line entry point for the reader: TraceReader <trace file>...
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: TraceReader <trace file>...");
+            System.exit(2);
+        }
+        for (String path : args) {
+            print(path);
+        }
+    }
+}
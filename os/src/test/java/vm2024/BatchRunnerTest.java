@@ -0,0 +1,174 @@
+package vm2024;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Runs directories of decks in parallel, and checks the dump of every deck and the latency percentiles of the summary.
+class BatchRunnerTest {
+
+    @TempDir
+    Path directory;
+
+    // Returns a deck result of jobs with the given turnaround times, in nanoseconds.
+    static BatchRunner.DeckResult result(String deck, long... turnarounds) {
+        BatchRunner.DeckResult result = new BatchRunner.DeckResult();
+        result.deck = Path.of(deck);
+        result.jobs = new ArrayList<ProcessControlBlock>();
+        for (long turnaround : turnarounds) {
+            ProcessControlBlock pcb = new ProcessControlBlock();
+            pcb.arrivalTime = 1000;
+            pcb.completionTime = 1000 + turnaround;
+            pcb.instructionsExecuted = 10;
+            result.jobs.add(pcb);
+        }
+        return result;
+    }
+
+    // Returns the last line that printSummary prints for the results, and checks the number of failed decks that it returns.
+    static String summary(ArrayList<BatchRunner.DeckResult> results, int failures) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(output, true));
+        try {
+            assertEquals(failures, BatchRunner.printSummary(results, 1_000_000));
+        } finally {
+            System.setOut(out);
+        }
+        String[] lines = output.toString().split("\\R");
+        return lines[lines.length - 1];
+    }
+
+    @Test
+    void percentilesAreNearestRank() {
+        long[] hundred = new long[100];
+        for (int i = 0; i < hundred.length; i++) {
+            hundred[i] = i + 1;
+        }
+        assertEquals(50, BatchRunner.percentile(hundred, 50));
+        assertEquals(99, BatchRunner.percentile(hundred, 99));
+        assertEquals(100, BatchRunner.percentile(hundred, 100));
+
+        long[] ten = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        assertEquals(5, BatchRunner.percentile(ten, 50));
+        assertEquals(10, BatchRunner.percentile(ten, 99));
+        assertEquals(1, BatchRunner.percentile(ten, 0));
+        assertEquals(7, BatchRunner.percentile(new long[] {7}, 99));
+        assertEquals(0, BatchRunner.percentile(new long[0], 50));
+    }
+
+    @Test
+    void summaryTakesPercentilesOverTheJobsOfEveryDeck() {
+        ArrayList<BatchRunner.DeckResult> results = new ArrayList<BatchRunner.DeckResult>();
+        // The latencies of the jobs are 1 to 10 us, spread over two decks out of order.
+        results.add(result("b.txt", 9000, 2000, 7000, 4000));
+        results.add(result("a.txt", 10000, 1000, 3000, 8000, 6000, 5000));
+        BatchRunner.DeckResult failed = new BatchRunner.DeckResult();
+        failed.deck = Path.of("c.txt");
+        failed.failure = new ArithmeticException("/ by zero");
+        results.add(failed);
+
+        String line = summary(results, 1);
+        assertTrue(line.startsWith("3 decks (1 failed): 10 jobs, 100 instructions in 1.000 ms"), line);
+        assertTrue(line.endsWith(String.format("job latency p50 %.1f us, p99 %.1f us", 5.0, 10.0)), line);
+    }
+
+    @Test
+    void summaryOfOnlyFailedDecksHasNoLatency() {
+        BatchRunner.DeckResult failed = new BatchRunner.DeckResult();
+        failed.deck = Path.of("c.txt");
+        failed.failure = new ArithmeticException("/ by zero");
+        ArrayList<BatchRunner.DeckResult> results = new ArrayList<BatchRunner.DeckResult>(List.of(failed));
+        String line = summary(results, 1);
+        assertTrue(line.endsWith(String.format("job latency p50 %.1f us, p99 %.1f us", 0.0, 0.0)), line);
+    }
+
+    @Test
+    void globOnlyMatchesItsFilesInNameOrder() throws IOException {
+        TestDecks.selfModifying().write(directory.resolve("b.txt"));
+        TestDecks.selfModifying().write(directory.resolve("a.txt"));
+        Files.writeString(directory.resolve("notes.md"), "not a deck");
+        Files.createDirectories(directory.resolve("c.txt"));
+
+        assertEquals(List.of(directory.resolve("a.txt"), directory.resolve("b.txt")), BatchRunner.decks(directory.resolve("*.txt").toString()));
+        assertEquals(List.of(directory.resolve("a.txt"), directory.resolve("b.txt"), directory.resolve("notes.md")), BatchRunner.decks(directory.toString()));
+    }
+
+    // Checks that a dump holds the final registers and memory of every job of a run, in the format of the program file.
+    static void assertDumpOf(OperatingSystem expected, Path dump) throws IOException {
+        List<String> lines = Files.readAllLines(dump);
+        int line = 0;
+        for (ProcessControlBlock pcb : expected.jobQueue) {
+            assertEquals(String.format("// JOB %X %X %X", pcb.jobId, pcb.instructionCount, pcb.priority), lines.get(line++));
+            String[] registers = lines.get(line++).split(" ");
+            assertEquals("// Registers", registers[0] + " " + registers[1]);
+            int[] dumpedRegisters = new int[registers.length - 2];
+            for (int i = 0; i < dumpedRegisters.length; i++) {
+                dumpedRegisters[i] = Integer.parseUnsignedInt(registers[i + 2].substring(2), 16);
+            }
+            assertArrayEquals(pcb.finalRegisters, dumpedRegisters, "job " + pcb.jobId + " registers");
+
+            int[] memory = new int[pcb.finalMemory.length];
+            for (int i = 0; i < memory.length; i++) {
+                if (i == pcb.dataOffset) {
+                    assertTrue(lines.get(line++).startsWith("// Data "), "job " + pcb.jobId + " data");
+                }
+                memory[i] = Integer.parseUnsignedInt(lines.get(line++).substring(2), 16);
+            }
+            assertArrayEquals(pcb.finalMemory, memory, "job " + pcb.jobId + " memory");
+            assertEquals("// END", lines.get(line++));
+        }
+        assertEquals(lines.size(), line);
+    }
+
+    @Test
+    void everyDeckIsDumpedAsItEndsOnItsOwn() throws IOException {
+        Path decks = Files.createDirectories(directory.resolve("decks"));
+        Path output = directory.resolve("out");
+        TestDecks.selfModifying().write(decks.resolve("1-self.txt"));
+        TestDecks.selfModifying().repeat(3).write(decks.resolve("2-many.txt"));
+        TestDecks.divisionByZero().write(decks.resolve("3-fault.txt"));
+        TestDecks.selfModifying().and(TestDecks.selfModifying().priority(2)).write(decks.resolve("4-mixed.txt"));
+        Files.copy(TestDecks.programFile(), decks.resolve("5-program.txt"));
+
+        ArrayList<Path> files = BatchRunner.decks(decks.toString());
+        ArrayList<BatchRunner.DeckResult> results = new BatchRunner(3, ExecutionEngine.SWITCH).run(files, output);
+        assertEquals(files.size(), results.size());
+        for (int i = 0; i < files.size(); i++) {
+            BatchRunner.DeckResult result = results.get(i);
+            Path deck = files.get(i);
+            assertEquals(deck, result.deck);
+            assertTrue(result.elapsed > 0);
+            if (deck.endsWith("3-fault.txt")) {
+                // The deck that divides by zero is reported, while the others still run and are dumped.
+                assertInstanceOf(ArithmeticException.class, result.failure);
+                assertFalse(Files.exists(output.resolve("3-fault.txt.dump")));
+                continue;
+            }
+            assertNull(result.failure, deck.toString());
+            OperatingSystem expected = EngineDifferentialTest.run(deck, ExecutionEngine.SWITCH, false);
+            EngineDifferentialTest.assertSameResults(expected, runAs(result), deck.toString());
+            assertDumpOf(expected, output.resolve(deck.getFileName() + ".dump"));
+        }
+    }
+
+    // Returns an OS whose job queue holds the jobs of a deck result, to compare them with a run of the deck.
+    static OperatingSystem runAs(BatchRunner.DeckResult result) {
+        OperatingSystem os = new OperatingSystem();
+        os.jobQueue = result.jobs;
+        return os;
+    }
+}
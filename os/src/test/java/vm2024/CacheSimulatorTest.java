@@ -0,0 +1,29 @@
+package vm2024;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+// Checks which process the cache simulator counts its events for.
+class CacheSimulatorTest {
+
+    @Test
+    void writeBackIsCountedForTheProcessThatDirtiedTheLine() {
+        // A direct-mapped cache of a single 4-word line, so any other line evicts it.
+        CacheSimulator cache = new CacheSimulator(4, 4, 1, CacheSimulator.WritePolicy.WRITE_BACK, CacheSimulator.ReplacementPolicy.LRU);
+        long[] writer = new long[CacheSimulator.COUNTERS];
+        long[] reader = new long[CacheSimulator.COUNTERS];
+        cache.access(0, true, writer);
+        cache.access(16, false, reader);
+
+        assertEquals(1, writer[CacheSimulator.MEMORY_WRITES]);
+        assertEquals(0, reader[CacheSimulator.MEMORY_WRITES]);
+        assertEquals(1, reader[CacheSimulator.EVICTIONS]);
+        assertEquals(1, reader[CacheSimulator.MISSES]);
+
+        // The line the reader brought in is clean, so evicting it writes nothing back.
+        cache.access(0, false, writer);
+        assertEquals(1, writer[CacheSimulator.MEMORY_WRITES]);
+        assertEquals(0, reader[CacheSimulator.MEMORY_WRITES]);
+    }
+}
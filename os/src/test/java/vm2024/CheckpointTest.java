@@ -0,0 +1,168 @@
+package vm2024;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Takes a checkpoint in the middle of a batch, resumes it on another OS, and checks that the resumed batch ends like the uninterrupted one.
+class CheckpointTest {
+
+    @TempDir
+    Path directory;
+
+    // An OS that takes a single checkpoint, either while an IO transfer has completed and its interrupt is not serviced yet, or right after an IO instruction.
+    static class CheckpointingOperatingSystem extends OperatingSystem {
+        boolean checkpointOnIO;
+        boolean requested;
+        long transfersAtCheckpoint = -1;
+        int completedAtCheckpoint;
+
+        CheckpointingOperatingSystem(boolean checkpointOnIO) {
+            this.checkpointOnIO = checkpointOnIO;
+        }
+
+        // Leaves the pending interrupts for after the checkpoint the first time there are some and a process can run meanwhile.
+        @Override
+        void serviceInterrupts() {
+            if (!checkpointOnIO && !requested && DMA.hasInterrupt() && !readyQueue.isEmpty()) {
+                requested = true;
+                checkpointRequested = true;
+                return;
+            }
+            super.serviceInterrupts();
+        }
+
+        // Gives the OS a CPU that asks for a checkpoint at the first IO instruction it runs.
+        @Override
+        CentralProcessingUnit createCPU(int id) {
+            if (!checkpointOnIO) {
+                return super.createCPU(id);
+            }
+            CentralProcessingUnit cpu = new CentralProcessingUnit(MMU) {
+                @Override
+                void requestIO(long instruction) {
+                    super.requestIO(instruction);
+                    if (!requested) {
+                        requested = true;
+                        checkpointRequested = true;
+                    }
+                }
+            };
+            cpu.id = id;
+            cpu.blockOnIO = DMA != null;
+            return cpu;
+        }
+
+        // Records the transfers that the snapshot already contains.
+        @Override
+        void checkpoint(CentralProcessingUnit cpu, ProcessControlBlock running) {
+            synchronized (DMA) {
+                super.checkpoint(cpu, running);
+                transfersAtCheckpoint = DMA.getTransfers();
+                for (ProcessControlBlock pcb : jobQueue) {
+                    if (pcb.waiting && pcb.ioCompleted) {
+                        completedAtCheckpoint++;
+                    }
+                }
+            }
+        }
+    }
+
+    // An OS that asks for a checkpoint when it dispatches its first process, once every job that fits is in memory.
+    static class FirstDispatchCheckpointOperatingSystem extends OperatingSystem {
+        boolean requested;
+
+        @Override
+        void dispatch(int i) {
+            super.dispatch(i);
+            if (!requested) {
+                requested = true;
+                checkpointRequested = true;
+            }
+        }
+    }
+
+    // Runs the jobs in turns, so the computing job is ready while the others wait for IO.
+    static void configure(OperatingSystem os) {
+        os.schedulingPolicy = new RoundRobinPolicy(50);
+        os.directMemoryAccess = true;
+        os.ioLatency = 200_000;
+        os.captureFinalState = true;
+    }
+
+    // Runs the IO deck with a checkpoint, and returns the OS that ran it uninterrupted.
+    CheckpointingOperatingSystem checkpointedRun(boolean checkpointOnIO) throws IOException {
+        Path deck = TestDecks.io(4, 200).write(directory.resolve("io.txt"));
+        CheckpointingOperatingSystem uninterrupted = new CheckpointingOperatingSystem(checkpointOnIO);
+        configure(uninterrupted);
+        uninterrupted.checkpointPath = directory.resolve("snapshot.bin");
+        uninterrupted.driver(deck.toString());
+        assertTrue(uninterrupted.transfersAtCheckpoint >= 0, "The checkpoint was taken");
+        return uninterrupted;
+    }
+
+    // Resumes the snapshot of a run on another OS, and checks that it ends like the uninterrupted run, transferring every IO request once.
+    static void assertResumesLike(CheckpointingOperatingSystem uninterrupted) throws IOException {
+        OperatingSystem resumed = new OperatingSystem();
+        configure(resumed);
+        resumed.resume(uninterrupted.checkpointPath);
+
+        int requests = 0;
+        for (int i = 0; i < uninterrupted.jobQueue.size(); i++) {
+            ProcessControlBlock want = uninterrupted.jobQueue.get(i);
+            ProcessControlBlock got = resumed.jobQueue.get(i);
+            requests += want.ioRequests;
+            // Jobs that had finished before the checkpoint do not run again.
+            if (got.finalMemory == null) {
+                continue;
+            }
+            assertArrayEquals(want.finalRegisters, got.finalRegisters, "job " + want.jobId + " registers");
+            assertArrayEquals(want.finalMemory, got.finalMemory, "job " + want.jobId + " memory");
+        }
+        // Every IO request is transferred once, either before the checkpoint or after resuming.
+        assertEquals(requests - uninterrupted.transfersAtCheckpoint, resumed.DMA.getTransfers());
+    }
+
+    @Test
+    void resumedBatchEndsLikeTheUninterruptedOneWithoutRepeatingTransfers() throws IOException {
+        CheckpointingOperatingSystem uninterrupted = checkpointedRun(false);
+        assertTrue(uninterrupted.completedAtCheckpoint > 0, "The checkpoint was taken with a completed transfer waiting for its interrupt");
+        assertResumesLike(uninterrupted);
+    }
+
+    @Test
+    void checkpointAskedForOnAnIOInstructionResumesWithoutRepeatingTheRequest() throws IOException {
+        assertResumesLike(checkpointedRun(true));
+    }
+
+    @Test
+    void snapshotOfSharedCodeKeepsSharingWhenResumedWithoutIt() throws IOException {
+        Path deck = TestDecks.selfModifying().repeat(2).write(directory.resolve("shared.txt"));
+        FirstDispatchCheckpointOperatingSystem uninterrupted = new FirstDispatchCheckpointOperatingSystem();
+        uninterrupted.shareCode = true;
+        uninterrupted.captureFinalState = true;
+        uninterrupted.checkpointPath = directory.resolve("snapshot.bin");
+        uninterrupted.driver(deck.toString());
+        assertTrue(uninterrupted.MMU.getSharedPages() > 0, "The jobs shared code pages");
+
+        OperatingSystem resumed = new OperatingSystem();
+        resumed.captureFinalState = true;
+        resumed.resume(uninterrupted.checkpointPath);
+        assertTrue(resumed.MMU.sharesCode(), "The resumed memory shares code");
+
+        // Every job was in memory at the checkpoint, so every one of them finishes after resuming, each writing into its own copy of the shared pages.
+        for (int i = 0; i < uninterrupted.jobQueue.size(); i++) {
+            ProcessControlBlock want = uninterrupted.jobQueue.get(i);
+            ProcessControlBlock got = resumed.jobQueue.get(i);
+            assertArrayEquals(want.finalRegisters, got.finalRegisters, "job " + want.jobId + " registers");
+            assertArrayEquals(want.finalMemory, got.finalMemory, "job " + want.jobId + " memory");
+        }
+        // A shared frame is freed once, with the last page table that maps it.
+        assertEquals(MemoryManagementUnit.DEFAULT_FRAMES, resumed.MMU.getFreeFrames());
+    }
+}
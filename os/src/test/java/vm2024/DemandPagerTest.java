@@ -0,0 +1,152 @@
+package vm2024;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Checks the page faults of every replacement policy on known reference strings, and that demand-paged batches end as they do with every page loaded.
+class DemandPagerTest {
+
+    static final int WORDS = MemoryManagementUnit.FRAME_SIZE;
+
+    // The reference string of Belady's anomaly, in pages 1 to 5.
+    static final int[] BELADY = {1, 2, 3, 4, 1, 2, 5, 1, 2, 3, 4, 5};
+
+    @TempDir
+    Path directory;
+
+    // Touches one word of every page of the reference string, in a process of five pages on a memory of the given number of frames.
+    // Returns the process, whose counters hold the faults and evictions.
+    static ProcessControlBlock touch(PageReplacementPolicy policy, int frames, int[] pages) throws IOException {
+        OperatingSystem kernel = new OperatingSystem();
+        kernel.IOC = new IOController();
+        for (int i = 0; i < 5 * WORDS; i++) {
+            kernel.IOC.write(i);
+        }
+        MemoryManagementUnit memory = new MemoryManagementUnit(frames);
+        try (SwapSpace swap = new SwapSpace(null)) {
+            memory.enableDemandPaging(new DemandPager(frames, policy, swap, kernel));
+            ProcessControlBlock pcb = new ProcessControlBlock();
+            pcb.wordCount = 5 * WORDS;
+            pcb.pageNumber = memory.allocate(pcb.wordCount);
+            memory.map(pcb);
+            for (int page : pages) {
+                int address = (page - 1) * WORDS + 3;
+                assertEquals(address, memory.read(pcb.pageNumber, address), "page " + page);
+            }
+            assertEquals(pcb.pageFaults, memory.getPager().getFaults());
+            return pcb;
+        }
+    }
+
+    // Returns the number of page faults of the reference string.
+    static long faults(PageReplacementPolicy policy, int frames, int[] pages) throws IOException {
+        ProcessControlBlock pcb = touch(policy, frames, pages);
+        // Every fault past the first one of each frame evicts a page.
+        assertEquals(Math.max(0, pcb.pageFaults - frames), pcb.pageEvictions);
+        return pcb.pageFaults;
+    }
+
+    @Test
+    void firstInFirstOutShowsBeladysAnomaly() throws IOException {
+        assertEquals(9, faults(new FirstInFirstOutReplacement(), 3, BELADY));
+        assertEquals(10, faults(new FirstInFirstOutReplacement(), 4, BELADY));
+    }
+
+    @Test
+    void leastRecentlyUsedEvictsTheOldestAccess() throws IOException {
+        assertEquals(10, faults(new LeastRecentlyUsedReplacement(), 3, BELADY));
+        assertEquals(8, faults(new LeastRecentlyUsedReplacement(), 4, BELADY));
+        // Page 1 is touched between every other page, so LRU keeps it while FIFO evicts it with the others.
+        int[] hot = {1, 2, 1, 3, 1, 4, 1, 2, 1, 3, 1, 4};
+        assertEquals(7, faults(new LeastRecentlyUsedReplacement(), 2, hot));
+        assertEquals(9, faults(new FirstInFirstOutReplacement(), 2, hot));
+    }
+
+    @Test
+    void clockGivesReferencedPagesASecondChance() throws IOException {
+        assertEquals(9, faults(new ClockReplacement(), 3, BELADY));
+        // Page 2 is touched after the sweep that loads page 4 clears every bit, so the hand passes over it and evicts page 3, which FIFO keeps.
+        int[] second = {1, 2, 3, 4, 2, 5, 2};
+        assertEquals(5, faults(new ClockReplacement(), 3, second));
+        assertEquals(6, faults(new FirstInFirstOutReplacement(), 3, second));
+    }
+
+    @Test
+    void pagesWrittenBackAreReadFromTheSwapArea() throws IOException {
+        OperatingSystem kernel = new OperatingSystem();
+        kernel.IOC = new IOController();
+        for (int i = 0; i < 3 * WORDS; i++) {
+            kernel.IOC.write(i);
+        }
+        MemoryManagementUnit memory = new MemoryManagementUnit(1);
+        try (SwapSpace swap = new SwapSpace(null)) {
+            DemandPager pager = new DemandPager(1, new FirstInFirstOutReplacement(), swap, kernel);
+            memory.enableDemandPaging(pager);
+            ProcessControlBlock pcb = new ProcessControlBlock();
+            pcb.wordCount = 3 * WORDS;
+            pcb.pageNumber = memory.allocate(pcb.wordCount);
+            memory.map(pcb);
+            memory.write(pcb.pageNumber, 5, 77);
+            assertEquals(WORDS + 5, memory.read(pcb.pageNumber, WORDS + 5));
+            // Only the dirty first page is written back, and the clean second page is dropped.
+            assertEquals(2 * WORDS, memory.read(pcb.pageNumber, 2 * WORDS));
+            assertEquals(77, memory.read(pcb.pageNumber, 5));
+            assertEquals(4, pager.getFaults());
+            assertEquals(3, pager.getEvictions());
+            assertEquals(1, pager.getWriteBacks());
+            assertEquals(1, swap.getReads());
+        }
+    }
+
+    // Runs a deck round-robin on demand-paged memory of the given number of frames, keeping the final state of every job.
+    // The jobs take turns, so they keep evicting each other's pages.
+    static OperatingSystem run(Path deck, PageReplacementPolicy policy, int frames) throws IOException {
+        OperatingSystem os = new OperatingSystem();
+        os.schedulingPolicy = new RoundRobinPolicy(5);
+        os.pageReplacement = policy;
+        os.memoryFrames = frames;
+        os.captureFinalState = true;
+        os.driver(deck.toString());
+        return os;
+    }
+
+    // Checks that the deck ends on few frames with every policy as it does with every page loaded, and that the faults of its jobs add up to the pager's.
+    static void assertPagedRunsAgree(Path deck) throws IOException {
+        OperatingSystem expected = run(deck, null, MemoryManagementUnit.DEFAULT_FRAMES);
+        List<Supplier<PageReplacementPolicy>> policies = List.of(FirstInFirstOutReplacement::new, LeastRecentlyUsedReplacement::new, ClockReplacement::new);
+        for (Supplier<PageReplacementPolicy> policy : policies) {
+            PageReplacementPolicy replacement = policy.get();
+            String name = replacement.getClass().getSimpleName();
+            OperatingSystem actual = run(deck, replacement, 4);
+            EngineDifferentialTest.assertSameResults(expected, actual, name);
+            long faults = 0;
+            long evictions = 0;
+            for (ProcessControlBlock pcb : actual.jobQueue) {
+                assertTrue(pcb.pageFaults > 0, name + ", job " + pcb.jobId + " faults");
+                faults += pcb.pageFaults;
+                evictions += pcb.pageEvictions;
+            }
+            DemandPager pager = actual.MMU.getPager();
+            assertEquals(pager.getFaults(), faults, name + " faults");
+            assertEquals(pager.getEvictions(), evictions, name + " evictions");
+            assertTrue(evictions > 0, name + " evictions");
+        }
+    }
+
+    @Test
+    void programFileEndsTheSameWithEveryPolicy() throws IOException {
+        assertPagedRunsAgree(TestDecks.programFile());
+    }
+
+    @Test
+    void selfModifyingJobsEndTheSameWithEveryPolicy() throws IOException {
+        assertPagedRunsAgree(TestDecks.selfModifying().repeat(3).write(directory.resolve("paged.txt")));
+    }
+}
@@ -0,0 +1,134 @@
+package vm2024;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Checks the transfers and completion interrupts of the DMA channel, and that the CPU runs other processes while they are in flight.
+class DirectMemoryAccessControllerTest {
+
+    @TempDir
+    Path directory;
+
+    // Boots an OS with a DMA channel of the given latency, and returns it with one process of 16 words in memory.
+    static OperatingSystem bootWithProcess(long latency, ProcessControlBlock pcb) {
+        OperatingSystem os = new OperatingSystem();
+        os.directMemoryAccess = true;
+        os.ioLatency = latency;
+        os.boot();
+        pcb.pageNumber = os.MMU.allocate(16);
+        pcb.instructionCount = 4;
+        pcb.instructions = new InstructionCache(4);
+        for (int i = 0; i < 4; i++) {
+            pcb.instructions.load(i, TestDecks.NOP);
+        }
+        return os;
+    }
+
+    // Posts an IO request of the process to the channel.
+    static void request(OperatingSystem os, ProcessControlBlock pcb, int opcode, int register, int address) {
+        pcb.ioOpcode = opcode;
+        pcb.ioRegister = register;
+        pcb.ioAddress = address;
+        pcb.waiting = true;
+        os.DMA.submit(pcb);
+    }
+
+    @Test
+    void transferCompletesWithAnInterrupt() {
+        ProcessControlBlock pcb = new ProcessControlBlock();
+        OperatingSystem os = bootWithProcess(1_000_000, pcb);
+        try {
+            os.MMU.write(pcb.pageNumber, 9, 1234);
+            request(os, pcb, DirectMemoryAccessController.RD, 5, 9);
+            assertEquals(1, os.DMA.getPending());
+
+            os.awaitInterrupt();
+            assertTrue(pcb.ioCompleted);
+            assertEquals(1234, pcb.registers[5]);
+            assertSame(pcb, os.DMA.nextInterrupt());
+            assertNull(os.DMA.nextInterrupt());
+            assertEquals(0, os.DMA.getPending());
+
+            // A write into the code region drops the pre-decoded instruction there.
+            pcb.registers[6] = TestDecks.HLT;
+            request(os, pcb, DirectMemoryAccessController.WR, 6, 2);
+            os.awaitInterrupt();
+            assertSame(pcb, os.DMA.nextInterrupt());
+            assertEquals(TestDecks.HLT, os.MMU.read(pcb.pageNumber, 2));
+            assertEquals(0, pcb.instructions.get(2));
+            assertEquals(2, os.DMA.getTransfers());
+        } finally {
+            os.shutdown();
+        }
+    }
+
+    @Test
+    void failedTransferIsReportedToTheKernel() {
+        ProcessControlBlock pcb = new ProcessControlBlock();
+        OperatingSystem os = bootWithProcess(0, pcb);
+        try {
+            // The address is outside of the process's page table.
+            request(os, pcb, DirectMemoryAccessController.RD, 5, 1 << 20);
+            os.awaitInterrupt();
+            assertThrows(IllegalStateException.class, os.DMA::nextInterrupt);
+        } finally {
+            os.shutdown();
+        }
+    }
+
+    // An OS that counts the dispatches made while a transfer is in flight, and checks that it never dispatches a process waiting for IO.
+    static class OverlapOperatingSystem extends OperatingSystem {
+        int overlapped;
+
+        @Override
+        void dispatch(int i) {
+            super.dispatch(i);
+            assertFalse(PCB.waiting, "job " + PCB.jobId + " was dispatched while waiting for IO");
+            if (DMA.getPending() > 0) {
+                overlapped++;
+            }
+        }
+    }
+
+    @Test
+    void processesRunWhileTransfersAreInFlightAndEndAsWithoutTheChannel() throws IOException {
+        Path deck = TestDecks.io(3, 50).write(directory.resolve("io.txt"));
+        OperatingSystem synchronous = new OperatingSystem();
+        synchronous.captureFinalState = true;
+        synchronous.driver(deck.toString());
+
+        OverlapOperatingSystem os = new OverlapOperatingSystem();
+        os.schedulingPolicy = new RoundRobinPolicy(50);
+        os.directMemoryAccess = true;
+        os.ioLatency = 100_000;
+        os.captureFinalState = true;
+        os.driver(deck.toString());
+
+        assertTrue(os.overlapped > 0, "No process ran while a transfer was in flight");
+        long requests = 0;
+        for (int i = 0; i < os.jobQueue.size(); i++) {
+            ProcessControlBlock want = synchronous.jobQueue.get(i);
+            ProcessControlBlock got = os.jobQueue.get(i);
+            assertArrayEquals(want.finalRegisters, got.finalRegisters, "job " + want.jobId + " registers");
+            assertArrayEquals(want.finalMemory, got.finalMemory, "job " + want.jobId + " memory");
+            requests += got.ioRequests;
+        }
+        // Each IO job reads and writes once per iteration, and every request was transferred and serviced.
+        assertEquals(3 * 50 * 2, requests);
+        assertEquals(requests, os.DMA.getTransfers());
+        assertEquals(0, os.DMA.getPending());
+        // The job that adds 3 to r7 fifty times wrote the sum back with its last WR.
+        assertEquals(150, os.jobQueue.get(3).finalRegisters[7]);
+        assertEquals(150, os.jobQueue.get(3).finalMemory[12]);
+    }
+}
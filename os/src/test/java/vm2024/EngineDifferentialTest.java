@@ -0,0 +1,111 @@
+package vm2024;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Runs the same decks on every execution engine, with and without the load-time optimizer, and checks that they all end in the state of the switch interpreter.
+class EngineDifferentialTest {
+
+    @TempDir
+    Path directory;
+
+    // Runs a deck on an OS with the given engine, keeping the final state of every job.
+    static OperatingSystem run(Path deck, ExecutionEngine engine, boolean optimize) throws IOException {
+        return run(deck, engine, optimize, false);
+    }
+
+    // Runs a deck on an OS with the given engine, sharing the code of jobs of the same program when asked to.
+    static OperatingSystem run(Path deck, ExecutionEngine engine, boolean optimize, boolean shareCode) throws IOException {
+        OperatingSystem os = new OperatingSystem();
+        os.engine = engine;
+        os.optimize = optimize;
+        os.shareCode = shareCode;
+        os.captureFinalState = true;
+        os.driver(deck.toString());
+        return os;
+    }
+
+    // Checks that every job of a run ended with the registers, memory, and retired instructions of the expected run.
+    static void assertSameResults(OperatingSystem expected, OperatingSystem actual, String configuration) {
+        ArrayList<ProcessControlBlock> expectedJobs = expected.jobQueue;
+        ArrayList<ProcessControlBlock> actualJobs = actual.jobQueue;
+        assertEquals(expectedJobs.size(), actualJobs.size(), configuration);
+        for (int i = 0; i < expectedJobs.size(); i++) {
+            ProcessControlBlock want = expectedJobs.get(i);
+            ProcessControlBlock got = actualJobs.get(i);
+            String job = configuration + ", job " + want.jobId;
+            assertNotNull(got.finalMemory, job);
+            assertArrayEquals(want.finalRegisters, got.finalRegisters, job + " registers");
+            assertArrayEquals(want.finalMemory, got.finalMemory, job + " memory");
+            assertEquals(want.instructionsExecuted, got.instructionsExecuted, job + " instructions");
+        }
+    }
+
+    // Runs a deck on every engine, with the optimizer off and on, against the plain switch interpreter.
+    static void assertEnginesAgree(Path deck) throws IOException {
+        OperatingSystem expected = run(deck, ExecutionEngine.SWITCH, false);
+        for (ExecutionEngine engine : ExecutionEngine.values()) {
+            for (boolean optimize : new boolean[] {false, true}) {
+                assertSameResults(expected, run(deck, engine, optimize), engine + (optimize ? " optimized" : ""));
+            }
+        }
+    }
+
+    @Test
+    void programFileEndsTheSameOnEveryEngine() throws IOException {
+        assertEnginesAgree(TestDecks.programFile());
+    }
+
+    @Test
+    void selfModifyingCodeEndsTheSameOnEveryEngine() throws IOException {
+        assertEnginesAgree(TestDecks.selfModifying().write(directory.resolve("self-modifying.txt")));
+    }
+
+    @Test
+    void sharedSelfModifyingCodeEndsTheSameOnEveryEngine() throws IOException {
+        Path deck = TestDecks.selfModifying().repeat(2).write(directory.resolve("shared.txt"));
+        OperatingSystem expected = run(deck, ExecutionEngine.SWITCH, false, false);
+        for (ExecutionEngine engine : ExecutionEngine.values()) {
+            OperatingSystem actual = run(deck, engine, false, true);
+            assertSameResults(expected, actual, engine + " shared");
+            assertTrue(actual.MMU.getSharedPages() > 0, engine + " shared pages");
+        }
+    }
+
+    @Test
+    void divisionByZeroFaultsOnTheSameInstructionOnEveryEngine() throws IOException {
+        Path deck = TestDecks.divisionByZero().write(directory.resolve("division.txt"));
+        CentralProcessingUnit expected = fault(deck, ExecutionEngine.SWITCH, false);
+        // The loop faults in the DIV of its last iteration, after the three loads and 1999 full iterations.
+        assertEquals(5, expected.PC);
+        assertEquals(3 + 4 * 1999 + 2, expected.instructionsExecuted);
+        for (ExecutionEngine engine : ExecutionEngine.values()) {
+            for (boolean optimize : new boolean[] {false, true}) {
+                String configuration = engine + (optimize ? " optimized" : "");
+                CentralProcessingUnit actual = fault(deck, engine, optimize);
+                assertEquals(expected.PC, actual.PC, configuration + " PC");
+                assertEquals(expected.process.programCounter, actual.process.programCounter, configuration + " program counter");
+                assertEquals(expected.instructionsExecuted, actual.instructionsExecuted, configuration + " instructions");
+                assertArrayEquals(expected.registers, actual.registers, configuration + " registers");
+            }
+        }
+    }
+
+    // Runs a deck that divides by zero, and returns the CPU as the fault left it.
+    static CentralProcessingUnit fault(Path deck, ExecutionEngine engine, boolean optimize) {
+        OperatingSystem os = new OperatingSystem();
+        os.engine = engine;
+        os.optimize = optimize;
+        assertThrows(ArithmeticException.class, () -> os.driver(deck.toString()));
+        return os.CPU;
+    }
+}
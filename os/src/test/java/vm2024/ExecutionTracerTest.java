@@ -0,0 +1,133 @@
+package vm2024;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Checks that the ring buffer of the execution tracer keeps the last instructions, and that its dumps read back through TraceReader.
+class ExecutionTracerTest {
+
+    @TempDir
+    Path directory;
+
+    // Reads the records of a trace file, checking its header.
+    static int[][] read(Path file, int cpu) throws IOException {
+        ByteBuffer trace = ByteBuffer.wrap(Files.readAllBytes(file));
+        assertEquals(ExecutionTracer.MAGIC, trace.getInt());
+        assertEquals(ExecutionTracer.VERSION, trace.getInt());
+        assertEquals(cpu, trace.getInt());
+        int[][] records = new int[trace.getInt()][ExecutionTracer.RECORD_SIZE];
+        for (int[] record : records) {
+            for (int field = 0; field < ExecutionTracer.RECORD_SIZE; field++) {
+                record[field] = trace.getInt();
+            }
+        }
+        assertEquals(0, trace.remaining());
+        return records;
+    }
+
+    // Returns what TraceReader prints for a trace file.
+    static String print(Path file) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(output, true));
+        try {
+            TraceReader.print(file.toString());
+        } finally {
+            System.setOut(out);
+        }
+        return output.toString();
+    }
+
+    @Test
+    void fullBufferKeepsTheLastRecordsOldestFirst() throws IOException {
+        ExecutionTracer tracer = new ExecutionTracer(4, 2, directory, false);
+        for (int i = 1; i <= 6; i++) {
+            tracer.record(7, i, TestDecks.NOP, i % 2 == 0 ? 5 : ExecutionTracer.NO_REGISTER, i, i * 10);
+        }
+        assertEquals(4, tracer.size());
+        Path file = tracer.dump(7, "request");
+        assertEquals("trace-cpu2-job7-request.bin", file.getFileName().toString());
+
+        int[][] records = read(file, 2);
+        assertEquals(4, records.length);
+        for (int r = 0; r < 4; r++) {
+            int pc = r + 3;
+            assertArrayEquals(new int[] {7, pc, TestDecks.NOP, pc % 2 == 0 ? 5 : ExecutionTracer.NO_REGISTER, pc, pc * 10}, records[r]);
+        }
+
+        String printed = print(file);
+        assertTrue(printed.startsWith(String.format("Trace of CPU 2: 4 instructions, oldest first%n")), printed);
+        // A header line, a column line, and one line per record, with the register change of the records that write one.
+        String[] lines = printed.split("\\R");
+        assertEquals(6, lines.length);
+        assertTrue(lines[2].trim().startsWith("7      3"), lines[2]);
+        assertTrue(lines[3].endsWith("r5: 4 -> 40"), lines[3]);
+        assertTrue(lines[5].endsWith("r5: 6 -> 60"), lines[5]);
+    }
+
+    @Test
+    void partlyFilledBufferDumpsOnlyItsRecords() throws IOException {
+        ExecutionTracer tracer = new ExecutionTracer(8, 0, directory, false);
+        tracer.record(1, 0, TestDecks.HLT, ExecutionTracer.NO_REGISTER, 0, 0);
+        int[][] records = read(tracer.dump(1, "request"), 0);
+        assertEquals(1, records.length);
+        assertEquals(TestDecks.HLT, records[0][ExecutionTracer.WORD]);
+    }
+
+    @Test
+    void readerRefusesOtherFiles() throws IOException {
+        Path file = Files.write(directory.resolve("not-a-trace.bin"), new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+        assertThrows(IOException.class, () -> TraceReader.print(file.toString()));
+    }
+
+    // Returns an OS that traces the last 8 instructions of its CPU into the temporary directory.
+    OperatingSystem tracingOS() {
+        OperatingSystem os = new OperatingSystem();
+        os.traceDepth = 8;
+        os.traceDirectory = directory;
+        return os;
+    }
+
+    @Test
+    void faultDumpsTheTraceEndingWithTheFaultingInstruction() throws IOException {
+        Path deck = TestDecks.divisionByZero().write(directory.resolve("division.txt"));
+        OperatingSystem os = tracingOS();
+        ArithmeticException e = assertThrows(ArithmeticException.class, () -> os.driver(deck.toString()));
+        // Once the JIT throws its preallocated exception for a hot division by zero, the exception drops suppressed notes, so only a note that was kept is checked.
+        for (Throwable note : e.getSuppressed()) {
+            assertTrue(note.getMessage().endsWith("trace-cpu0-job1-fault.bin"), note.getMessage());
+        }
+
+        int[][] records = read(directory.resolve("trace-cpu0-job1-fault.bin"), 0);
+        assertEquals(8, records.length);
+        int[] fault = records[7];
+        assertEquals(5, fault[ExecutionTracer.PC]);
+        assertEquals(TestDecks.arithmetic(TestDecks.DIV, 7, 6, 5), fault[ExecutionTracer.WORD]);
+        assertEquals(7, fault[ExecutionTracer.REGISTER]);
+        assertEquals(fault[ExecutionTracer.OLD_VALUE], fault[ExecutionTracer.NEW_VALUE]);
+        // The SUB before it brought r5 down to 0.
+        assertArrayEquals(new int[] {1, 4, TestDecks.arithmetic(TestDecks.SUB, 5, 5, 1), 5, 1, 0}, records[6]);
+    }
+
+    @Test
+    void everyHaltDumpsTheTraceOfItsJob() throws IOException {
+        Path deck = TestDecks.selfModifying().write(directory.resolve("deck.txt"));
+        tracingOS().driver(deck.toString());
+        for (int job = 1; job <= 4; job++) {
+            int[][] records = read(directory.resolve("trace-cpu0-job" + job + "-hlt.bin"), 0);
+            assertEquals(TestDecks.HLT, records[records.length - 1][ExecutionTracer.WORD], "job " + job);
+            assertEquals(job, records[records.length - 1][ExecutionTracer.JOB], "job " + job);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package vm2024;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+// Checks that the copy of a shared code page on a write always finds a free frame.
+class MemoryManagementUnitTest {
+
+    static final int WORDS = MemoryManagementUnit.FRAME_SIZE;
+
+    // Returns a disc that holds the same one-page program twice.
+    static IOController disc() {
+        IOController disc = new IOController();
+        for (int copy = 0; copy < 2; copy++) {
+            for (int i = 0; i < WORDS; i++) {
+                disc.write(i + 1);
+            }
+        }
+        return disc;
+    }
+
+    @Test
+    void sharedPageNeedsAFrameForItsCopy() {
+        MemoryManagementUnit memory = new MemoryManagementUnit(3);
+        memory.enableCodeSharing();
+        IOController disc = disc();
+        int first = memory.allocateShared(disc, 0, WORDS, WORDS);
+        int second = memory.allocateShared(disc, WORDS, WORDS, WORDS);
+        assertTrue(second >= 0);
+        assertEquals(1, memory.getSharedPages());
+        // One frame holds the shared page and another is reserved for its copy, so a third one-page job only fits in the last frame.
+        assertTrue(memory.allocate(WORDS) >= 0);
+        assertEquals(-1, memory.allocateShared(disc, 0, WORDS, WORDS));
+
+        memory.write(second, 3, 99);
+        assertEquals(1, memory.getCopiedPages());
+        assertEquals(99, memory.read(second, 3));
+        assertEquals(4, memory.read(first, 3));
+    }
+
+    @Test
+    void releasingASharedMappingGivesBackItsReservation() {
+        MemoryManagementUnit memory = new MemoryManagementUnit(2);
+        memory.enableCodeSharing();
+        IOController disc = disc();
+        memory.allocateShared(disc, 0, WORDS, WORDS);
+        int second = memory.allocateShared(disc, WORDS, WORDS, WORDS);
+        assertEquals(-1, memory.allocateShared(disc, 0, WORDS, WORDS));
+        memory.release(second);
+        assertTrue(memory.allocateShared(disc, 0, WORDS, WORDS) >= 0);
+    }
+}
@@ -0,0 +1,53 @@
+package vm2024;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Runs batches on several CPU cores that drain a shared ready queue, and checks that every job ends as it does on a single core.
+class MultiCoreDriverTest {
+
+    @TempDir
+    Path directory;
+
+    // Runs a deck on the given number of cores, keeping the final state of every job.
+    static OperatingSystem run(Path deck, int cores) throws IOException {
+        OperatingSystem os = new OperatingSystem();
+        os.coreCount = cores;
+        os.captureFinalState = true;
+        os.driver(deck.toString());
+        return os;
+    }
+
+    // Checks that the deck ends the same on 2 and 4 cores as on one, and that the cores retired all of its instructions between them.
+    static void assertCoresAgree(Path deck) throws IOException {
+        OperatingSystem expected = run(deck, 1);
+        long instructions = 0;
+        for (ProcessControlBlock pcb : expected.jobQueue) {
+            instructions += pcb.instructionsExecuted;
+        }
+        for (int cores : new int[] {2, 4}) {
+            OperatingSystem actual = run(deck, cores);
+            EngineDifferentialTest.assertSameResults(expected, actual, cores + " cores");
+            assertEquals(expected.jobQueue.size(), actual.finishedJobs, cores + " cores finished jobs");
+            long retired = 0;
+            for (CentralProcessingUnit core : actual.cores) {
+                retired += core.instructionsExecuted;
+            }
+            assertEquals(instructions, retired, cores + " cores instructions");
+        }
+    }
+
+    @Test
+    void programFileEndsTheSameOnEveryCoreCount() throws IOException {
+        assertCoresAgree(TestDecks.programFile());
+    }
+
+    @Test
+    void manyJobsEndTheSameOnEveryCoreCount() throws IOException {
+        assertCoresAgree(TestDecks.selfModifying().repeat(7).write(directory.resolve("many.txt")));
+    }
+}
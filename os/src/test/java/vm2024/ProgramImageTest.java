@@ -0,0 +1,73 @@
+package vm2024;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Assembles decks into program images, and checks that the image loader reads them back and refuses broken ones.
+class ProgramImageTest {
+
+    @TempDir
+    Path directory;
+
+    // Assembles the self-modifying deck, and returns the bytes of its image.
+    byte[] image() throws IOException {
+        Path deck = TestDecks.selfModifying().write(directory.resolve("deck.txt"));
+        Path image = directory.resolve("deck.img");
+        ProgramImage.assemble(deck.toString(), image.toString());
+        return Files.readAllBytes(image);
+    }
+
+    // Loads an image from its bytes into a new OS.
+    OperatingSystem load(byte[] bytes) throws IOException {
+        Path image = Files.write(directory.resolve("loaded.img"), bytes);
+        OperatingSystem os = new OperatingSystem();
+        os.boot();
+        os.imageLoader(image.toString());
+        return os;
+    }
+
+    @Test
+    void imageLoadsEveryJob() throws IOException {
+        OperatingSystem os = load(image());
+        assertEquals(4, os.jobQueue.size());
+        assertEquals(10, os.jobQueue.get(0).instructionCount);
+        assertEquals(13, os.jobQueue.get(0).wordCount);
+    }
+
+    @Test
+    void truncatedImageNamesTheJobThatIsCutOff() throws IOException {
+        byte[] bytes = image();
+        IOException e = assertThrows(IOException.class, () -> load(Arrays.copyOf(bytes, bytes.length - 4)));
+        assertTrue(e.getMessage().contains("job 4"), e.getMessage());
+
+        // The first job's header and 13 words, then half of the second job's header.
+        int cut = ProgramImage.FILE_HEADER_SIZE + ProgramImage.JOB_HEADER_SIZE + 13 * 4 + ProgramImage.JOB_HEADER_SIZE / 2;
+        e = assertThrows(IOException.class, () -> load(Arrays.copyOf(bytes, cut)));
+        assertTrue(e.getMessage().contains("header of job 2"), e.getMessage());
+    }
+
+    @Test
+    void corruptHeaderNamesTheJob() throws IOException {
+        byte[] bytes = image();
+        ByteBuffer image = ByteBuffer.wrap(bytes);
+        // The instruction count of the first job, above its word count.
+        image.putInt(ProgramImage.FILE_HEADER_SIZE + 8, 14);
+        IOException e = assertThrows(IOException.class, () -> load(bytes));
+        assertTrue(e.getMessage().contains("job 1"), e.getMessage());
+
+        // A negative word count.
+        image.putInt(ProgramImage.FILE_HEADER_SIZE + 8, 10);
+        image.putInt(ProgramImage.FILE_HEADER_SIZE + 28, -1);
+        e = assertThrows(IOException.class, () -> load(bytes));
+        assertTrue(e.getMessage().contains("job 1"), e.getMessage());
+    }
+}
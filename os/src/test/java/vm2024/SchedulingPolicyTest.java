@@ -0,0 +1,113 @@
+package vm2024;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Checks the order in which each scheduling policy picks processes, and how the quantum of Round-Robin preempts them.
+class SchedulingPolicyTest {
+
+    @TempDir
+    Path directory;
+
+    // An OS that records the job of every process that it dispatches.
+    static class RecordingOperatingSystem extends OperatingSystem {
+        ArrayList<Integer> dispatched = new ArrayList<Integer>();
+
+        @Override
+        void dispatch(int i) {
+            super.dispatch(i);
+            dispatched.add(PCB.jobId);
+        }
+    }
+
+    // Returns a ready PCB with the given priority and number of instructions.
+    static ProcessControlBlock process(int jobId, int priority, int instructionCount) {
+        ProcessControlBlock pcb = new ProcessControlBlock();
+        pcb.jobId = jobId;
+        pcb.priority = priority;
+        pcb.instructionCount = instructionCount;
+        pcb.ready = true;
+        return pcb;
+    }
+
+    // Returns a ready queue whose first process is not ready, followed by processes of different priorities and lengths.
+    static ArrayList<ProcessControlBlock> readyQueue() {
+        ArrayList<ProcessControlBlock> readyQueue = new ArrayList<ProcessControlBlock>();
+        readyQueue.add(process(1, 9, 1));
+        readyQueue.get(0).ready = false;
+        readyQueue.add(process(2, 1, 10));
+        readyQueue.add(process(3, 5, 8));
+        readyQueue.add(process(4, 7, 9));
+        readyQueue.add(process(5, 7, 8));
+        return readyQueue;
+    }
+
+    @Test
+    void policiesSelectFromTheReadyProcesses() {
+        assertEquals(1, new FirstInFirstOutPolicy().select(readyQueue()));
+        assertEquals(1, new RoundRobinPolicy(4).select(readyQueue()));
+        // Ties go to the process admitted first.
+        assertEquals(3, new PriorityPolicy().select(readyQueue()));
+        assertEquals(2, new ShortestJobFirstPolicy().select(readyQueue()));
+
+        ArrayList<ProcessControlBlock> empty = new ArrayList<ProcessControlBlock>();
+        assertEquals(-1, new FirstInFirstOutPolicy().select(empty));
+        assertEquals(-1, new PriorityPolicy().select(empty));
+        assertEquals(-1, new ShortestJobFirstPolicy().select(empty));
+        assertEquals(-1, new RoundRobinPolicy(4).select(empty));
+    }
+
+    @Test
+    void onlyRoundRobinHasAQuantum() {
+        assertEquals(0, new FirstInFirstOutPolicy().quantum());
+        assertEquals(0, new PriorityPolicy().quantum());
+        assertEquals(0, new ShortestJobFirstPolicy().quantum());
+        assertEquals(4, new RoundRobinPolicy(4).quantum());
+        assertThrows(IllegalArgumentException.class, () -> new RoundRobinPolicy(0));
+    }
+
+    // Runs a deck with a policy, and returns the jobs in the order they were dispatched.
+    List<Integer> dispatchOrder(TestDecks deck, SchedulingPolicy policy) throws IOException {
+        RecordingOperatingSystem os = new RecordingOperatingSystem();
+        os.schedulingPolicy = policy;
+        os.driver(deck.write(directory.resolve("deck.txt")).toString());
+        return os.dispatched;
+    }
+
+    // Three jobs whose lengths and priorities order them differently.
+    static TestDecks threeJobs() {
+        return new TestDecks()
+            .job(TestDecks.nops(9)).priority(1)
+            .job(TestDecks.nops(7)).priority(5)
+            .job(TestDecks.nops(8)).priority(7);
+    }
+
+    @Test
+    void policiesDispatchTheJobsInTheirOrder() throws IOException {
+        assertEquals(List.of(1, 2, 3), dispatchOrder(threeJobs(), new FirstInFirstOutPolicy()));
+        assertEquals(List.of(3, 2, 1), dispatchOrder(threeJobs(), new PriorityPolicy()));
+        assertEquals(List.of(2, 3, 1), dispatchOrder(threeJobs(), new ShortestJobFirstPolicy()));
+    }
+
+    @Test
+    void roundRobinPreemptsAfterTheQuantum() throws IOException {
+        // Jobs of 11 instructions run in turns of 3, 3, 3, and 2 instructions.
+        TestDecks deck = new TestDecks().job(TestDecks.nops(10)).job(TestDecks.nops(10)).job(TestDecks.nops(10));
+        RecordingOperatingSystem os = new RecordingOperatingSystem();
+        os.schedulingPolicy = new RoundRobinPolicy(3);
+        os.driver(deck.write(directory.resolve("deck.txt")).toString());
+
+        assertEquals(List.of(1, 2, 3, 1, 2, 3, 1, 2, 3, 1, 2, 3), os.dispatched);
+        for (ProcessControlBlock pcb : os.jobQueue) {
+            assertEquals(4, pcb.contextSwitches, "job " + pcb.jobId + " context switches");
+            assertEquals(11, pcb.instructionsExecuted, "job " + pcb.jobId + " instructions");
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package vm2024;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Builds program files for the tests, with the instruction formats of the CPU.
+// Addresses are given as word indexes of the job's logical space, and encoded as the byte offsets that the programs use.
+class TestDecks {
+
+    // Opcodes used by the test programs.
+    static final int RD = 0;
+    static final int WR = 1;
+    static final int ST = 2;
+    static final int LW = 3;
+    static final int ADD = 5;
+    static final int SUB = 6;
+    static final int DIV = 8;
+    static final int SLT = 16;
+    static final int LDI = 15;
+    static final int ADDI = 12;
+    static final int BEQ = 21;
+    static final int BNE = 22;
+
+    static final int HLT = (2 << 30) | (18 << 24);
+    static final int NOP = (2 << 30) | (19 << 24);
+
+    // The jobs of the deck, each as its instruction words, its data words, and its priority.
+    private ArrayList<int[][]> jobs = new ArrayList<int[][]>();
+
+    // Returns an arithmetic instruction on three registers.
+    static int arithmetic(int opcode, int r1, int r2, int r3) {
+        return (opcode << 24) | (r1 << 20) | (r2 << 16) | (r3 << 12);
+    }
+
+    // Returns a conditional branch or immediate instruction with two registers and the address of a word.
+    static int immediate(int opcode, int r1, int r2, int word) {
+        return (1 << 30) | (opcode << 24) | (r1 << 20) | (r2 << 16) | (word * 4);
+    }
+
+    // Returns an immediate instruction with two registers and address 0.
+    static int immediate(int opcode, int r1, int r2) {
+        return (1 << 30) | (opcode << 24) | (r1 << 20) | (r2 << 16);
+    }
+
+    // Returns an IO instruction that moves a register from or to a word.
+    static int io(int opcode, int register, int word) {
+        return (3 << 30) | (opcode << 24) | (register << 20) | (word * 4);
+    }
+
+    // Returns an unconditional jump to the target stored at a word.
+    static int jump(int word) {
+        return (2 << 30) | (20 << 24) | (word * 4);
+    }
+
+    // Adds a job with the given instructions and data.
+    TestDecks job(int[] instructions, int... data) {
+        jobs.add(new int[][] {instructions, data, {1}});
+        return this;
+    }
+
+    // Sets the priority of the last job added.
+    TestDecks priority(int priority) {
+        int[][] job = jobs.get(jobs.size() - 1);
+        jobs.set(jobs.size() - 1, new int[][] {job[0], job[1], {priority}});
+        return this;
+    }
+
+    // Returns a program of the given number of NOPs followed by a HLT.
+    static int[] nops(int count) {
+        int[] instructions = new int[count + 1];
+        Arrays.fill(instructions, 0, count, NOP);
+        instructions[count] = HLT;
+        return instructions;
+    }
+
+    // Adds the jobs of the deck again, the given number of times, so jobs of the same program can share their code.
+    TestDecks repeat(int times) {
+        int count = jobs.size();
+        for (int copy = 0; copy < times; copy++) {
+            for (int i = 0; i < count; i++) {
+                jobs.add(jobs.get(i));
+            }
+        }
+        return this;
+    }
+
+    // Adds the jobs of another deck after the jobs of this one.
+    TestDecks and(TestDecks other) {
+        jobs.addAll(other.jobs);
+        return this;
+    }
+
+    // Writes the deck to a file in the format of the program file.
+    Path write(Path file) throws IOException {
+        StringBuilder deck = new StringBuilder();
+        for (int i = 0; i < jobs.size(); i++) {
+            int[] instructions = jobs.get(i)[0];
+            int[] data = jobs.get(i)[1];
+            deck.append(String.format("// JOB %X %X %X%n", i + 1, instructions.length, jobs.get(i)[2][0]));
+            for (int word : instructions) {
+                deck.append(String.format("0x%08X%n", word));
+            }
+            deck.append(String.format("// Data %X 0 0%n", data.length));
+            for (int word : data) {
+                deck.append(String.format("0x%08X%n", word));
+            }
+            deck.append(String.format("// END%n"));
+        }
+        return Files.writeString(file, deck);
+    }
+
+    // Returns the path of the sample program file of the repository, which the build copies into the test classes.
+    static Path programFile() {
+        try {
+            return Paths.get(TestDecks.class.getResource("/Program File.txt").toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Returns a deck of programs that write into their own code: a writable jump target, a store over the next instruction, a jump into the second instruction of a fusable pair, and a long loop.
+    static TestDecks selfModifying() {
+        return new TestDecks()
+            .job(new int[] {immediate(LW, 4, 0, 10), immediate(ST, 4, 0, 11), immediate(BEQ, 0, 0, 11), immediate(LW, 6, 0, 12), HLT, NOP, NOP, immediate(LDI, 7, 4), immediate(ADDI, 7, 8), HLT}, 6, 3, 99)
+            .job(new int[] {immediate(LW, 5, 0, 8), immediate(ST, 5, 0, 3), NOP, HLT, arithmetic(SLT, 3, 6, 7), immediate(BNE, 3, 0, 10), HLT, NOP}, immediate(LW, 9, 0, 9), 1234, 0)
+            .job(new int[] {immediate(LW, 1, 0, 8), jump(9), HLT, immediate(LDI, 6, 0), immediate(ADDI, 7, 0), HLT, NOP, NOP}, 3, 3)
+            .job(new int[] {immediate(LW, 4, 0, 9), immediate(LW, 5, 0, 10), arithmetic(ADD, 1, 1, 5), immediate(LDI, 8, 4), immediate(ADDI, 8, 4), arithmetic(SLT, 3, 1, 4), immediate(BNE, 3, 0, 11), HLT, NOP}, 5000, 1, 1);
+    }
+
+    // Returns a deck of a job that only computes, followed by jobs that each read a word, add it to r7, and write r7 back in a loop, so they block on IO on every iteration.
+    static TestDecks io(int jobs, int iterations) {
+        TestDecks deck = new TestDecks()
+            .job(new int[] {immediate(LW, 4, 0, 6), immediate(LW, 5, 0, 7), arithmetic(ADD, 1, 1, 5), arithmetic(SLT, 3, 1, 4), immediate(BNE, 3, 0, 8), HLT}, 1000 * iterations, 1, 1);
+        for (int i = 1; i <= jobs; i++) {
+            deck.job(new int[] {immediate(LW, 1, 0, 9), immediate(LW, 4, 0, 10), io(RD, 6, 11), arithmetic(ADD, 7, 7, 6), io(WR, 7, 12), arithmetic(ADD, 5, 5, 1), arithmetic(SLT, 3, 5, 4), immediate(BNE, 3, 0, 13), HLT}, 1, iterations, i, 0, 1);
+        }
+        return deck;
+    }
+
+    // Returns a deck whose loop runs long enough to be compiled by the tiered engine, and then divides by zero in the middle of its block.
+    // r5 counts down from 2000, and the DIV after the SUB divides by it.
+    static TestDecks divisionByZero() {
+        return new TestDecks()
+            .job(new int[] {immediate(LW, 1, 0, 8), immediate(LW, 5, 0, 9), immediate(LW, 6, 0, 10), arithmetic(ADD, 6, 6, 1), arithmetic(SUB, 5, 5, 1), arithmetic(DIV, 7, 6, 5), immediate(BNE, 5, 0, 11), HLT}, 1, 2000, 0, 2);
+    }
+}
@@ -0,0 +1,78 @@
+package vm2024;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Runs batches in virtual-thread mode, where every process runs on its own virtual thread.
+class VirtualThreadDriverTest {
+
+    @TempDir
+    Path directory;
+
+    // Runs a deck on a single CPU, or on a virtual thread per process sharing the given number of cores, keeping the final state of every job.
+    static OperatingSystem run(Path deck, boolean virtualThreads, int cores, boolean directMemoryAccess) throws IOException {
+        OperatingSystem os = new OperatingSystem();
+        os.virtualThreads = virtualThreads;
+        os.coreCount = cores;
+        os.directMemoryAccess = directMemoryAccess;
+        os.ioLatency = 50_000;
+        os.schedulingPolicy = new RoundRobinPolicy(20);
+        os.captureFinalState = true;
+        os.driver(deck.toString());
+        return os;
+    }
+
+    // Checks that the deck ends on virtual threads as it does on a single CPU, with and without the DMA channel, and that no process thread is left.
+    static void assertThreadsAgree(Path deck) throws IOException {
+        OperatingSystem expected = run(deck, false, 1, false);
+        for (int cores : new int[] {1, 2}) {
+            for (boolean directMemoryAccess : new boolean[] {false, true}) {
+                String configuration = cores + " cores" + (directMemoryAccess ? " with DMA" : "");
+                OperatingSystem actual = run(deck, true, cores, directMemoryAccess);
+                EngineDifferentialTest.assertSameResults(expected, actual, configuration);
+                assertEquals(expected.jobQueue.size(), actual.finishedJobs, configuration);
+                for (ProcessControlBlock pcb : actual.jobQueue) {
+                    assertNull(pcb.thread, configuration + ", job " + pcb.jobId + " thread");
+                }
+            }
+        }
+    }
+
+    @Test
+    void programFileEndsTheSameOnVirtualThreads() throws IOException {
+        assertThreadsAgree(TestDecks.programFile());
+    }
+
+    @Test
+    void ioAndSelfModifyingJobsEndTheSameOnVirtualThreads() throws IOException {
+        assertThreadsAgree(TestDecks.io(3, 20).and(TestDecks.selfModifying()).repeat(1).write(directory.resolve("mixed.txt")));
+    }
+
+    @Test
+    void failingProcessStopsEveryOtherProcessThread() throws Exception {
+        // Processes that wait for IO, and one that divides by zero while they do.
+        Path deck = TestDecks.io(3, 200).and(TestDecks.divisionByZero()).write(directory.resolve("failing.txt"));
+        OperatingSystem os = new OperatingSystem();
+        os.virtualThreads = true;
+        os.coreCount = 2;
+        os.directMemoryAccess = true;
+        os.ioLatency = 200_000;
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> os.driver(deck.toString()));
+        assertInstanceOf(ArithmeticException.class, e.getCause());
+        assertNull(os.physicalCores);
+        for (ProcessControlBlock pcb : os.jobQueue) {
+            if (pcb.thread != null) {
+                assertFalse(pcb.thread.isAlive(), "The thread of job " + pcb.jobId + " is still running");
+            }
+        }
+    }
+}